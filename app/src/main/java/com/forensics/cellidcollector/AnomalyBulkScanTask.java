@@ -0,0 +1,152 @@
+package com.forensics.cellidcollector;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Re-runs the anomaly rules over the stored database. One reader streams rows in timestamp
+// order and fans them out to per-partition detectors running on their own threads.
+public class AnomalyBulkScanTask implements Runnable {
+    private static final String TAG = "AnomalyBulkScan";
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int ALERT_FLUSH_SIZE = 200;
+
+    private static final CellData END_OF_STREAM = new CellData();
+
+    public interface Listener {
+        void onBulkScanFinished(long rowsScanned, int alertsRaised);
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final Listener listener;
+    private final AtomicInteger alertsRaised = new AtomicInteger();
+
+    public AnomalyBulkScanTask(DatabaseHelper dbHelper, Listener listener) {
+        this.dbHelper = dbHelper;
+        this.listener = listener;
+    }
+
+    private class PartitionWorker extends Thread {
+        final BlockingQueue<CellData> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final AnomalyDetector detector;
+
+        PartitionWorker(String name, AnomalyRule.Scope scope) {
+            super(name);
+            detector = new AnomalyDetector(AnomalyDetector.createRules(scope));
+        }
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            List<AnomalyAlert> pending = new ArrayList<>();
+
+            try {
+                while (true) {
+                    CellData cellData = queue.take();
+                    if (cellData == END_OF_STREAM) {
+                        break;
+                    }
+                    pending.addAll(detector.process(cellData));
+                    if (pending.size() >= ALERT_FLUSH_SIZE) {
+                        flush(pending);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Log.w(TAG, getName() + " interrupted");
+            }
+            flush(pending);
+        }
+
+        private void flush(List<AnomalyAlert> pending) {
+            alertsRaised.addAndGet(dbHelper.insertAlerts(pending));
+            pending.clear();
+        }
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        long start = System.currentTimeMillis();
+
+        // Rows above the high-water mark are left to the live detector
+        long maxId = dbHelper.getMaxCellDataId();
+        int removed = dbHelper.deleteAlertsUpTo(maxId);
+        Log.d(TAG, "Re-scanning rows up to " + maxId + ", replacing " + removed + " alerts");
+
+        int partitions = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        final PartitionWorker[] siteWorkers = new PartitionWorker[partitions];
+        for (int i = 0; i < partitions; i++) {
+            siteWorkers[i] = new PartitionWorker("AnomalyScan-site" + i, AnomalyRule.Scope.SITE);
+            siteWorkers[i].start();
+        }
+        final PartitionWorker subscriptionWorker =
+            new PartitionWorker("AnomalyScan-subscription", AnomalyRule.Scope.SUBSCRIPTION);
+        subscriptionWorker.start();
+
+        final long[] rowsScanned = {0};
+        try {
+            dbHelper.scanCellDataByTime(maxId, cellData -> {
+                try {
+                    siteWorkers[AnomalyDetector.partitionOf(cellData, siteWorkers.length)].queue.put(cellData);
+                    if (cellData.isRegistered) {
+                        subscriptionWorker.queue.put(cellData);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                rowsScanned[0]++;
+                return !Thread.currentThread().isInterrupted();
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading observations for bulk scan", e);
+        } finally {
+            finish(siteWorkers, subscriptionWorker);
+        }
+
+        Log.i(TAG, "Bulk anomaly scan of " + rowsScanned[0] + " rows raised " + alertsRaised.get() +
+            " alerts in " + (System.currentTimeMillis() - start) + " ms");
+
+        if (listener != null) {
+            listener.onBulkScanFinished(rowsScanned[0], alertsRaised.get());
+        }
+    }
+
+    private void finish(PartitionWorker[] siteWorkers, PartitionWorker subscriptionWorker) {
+        List<PartitionWorker> workers = new ArrayList<>();
+        for (PartitionWorker worker : siteWorkers) {
+            workers.add(worker);
+        }
+        workers.add(subscriptionWorker);
+
+        // Cancelled scans interrupt the workers; finished ones drain their queues first
+        boolean interrupted = Thread.interrupted();
+        for (PartitionWorker worker : workers) {
+            if (interrupted) {
+                worker.interrupt();
+                continue;
+            }
+            try {
+                worker.queue.put(END_OF_STREAM);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                worker.interrupt();
+            }
+        }
+        for (PartitionWorker worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.forensics.cellidcollector;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Shared by all capture workers: one transaction per batch on a single writer thread
+public class CellDataWriter {
+    private static final String TAG = "CellDataWriter";
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final long FLUSH_DELAY_MS = 250;
+
+    public interface Listener {
+        void onBatchWritten(List<CellData> batch, int inserted);
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final Listener listener;
+    private final HandlerThread writerThread;
+    private final Handler writerHandler;
+    private final Object lock = new Object();
+    private List<CellData> pending = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private boolean writing = false;
+
+    private final Runnable flushRunnable = this::flush;
+
+    public CellDataWriter(DatabaseHelper dbHelper, Listener listener) {
+        this.dbHelper = dbHelper;
+        this.listener = listener;
+        writerThread = new HandlerThread("CellDataWriter", Process.THREAD_PRIORITY_BACKGROUND);
+        writerThread.start();
+        writerHandler = new Handler(writerThread.getLooper());
+    }
+
+    public void enqueue(CellData cellData) {
+        synchronized (lock) {
+            pending.add(cellData);
+            if (pending.size() >= MAX_BATCH_SIZE) {
+                writerHandler.removeCallbacks(flushRunnable);
+                writerHandler.post(flushRunnable);
+                flushScheduled = true;
+            } else if (!flushScheduled) {
+                writerHandler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+                flushScheduled = true;
+            }
+        }
+    }
+
+    public void enqueueAll(List<CellData> cellDataList) {
+        for (CellData cellData : cellDataList) {
+            enqueue(cellData);
+        }
+    }
+
+    // True when nothing is queued or being written; background readers wait for this
+    public boolean isIdle() {
+        synchronized (lock) {
+            return pending.isEmpty() && !writing;
+        }
+    }
+
+    private void flush() {
+        List<CellData> batch;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+            writing = true;
+        }
+
+        try {
+            int inserted = dbHelper.insertCellDataBatch(batch);
+            Log.v(TAG, "Flushed " + inserted + "/" + batch.size() + " observations");
+
+            if (listener != null) {
+                listener.onBatchWritten(batch, inserted);
+            }
+        } finally {
+            synchronized (lock) {
+                writing = false;
+            }
+        }
+    }
+
+    public void close() {
+        writerHandler.removeCallbacks(flushRunnable);
+        writerHandler.post(flushRunnable);
+        writerThread.quitSafely();
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.w(TAG, "Interrupted while draining writer", e);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.Process;
 import android.telephony.CellIdentityGsm;
 import android.telephony.CellIdentityLte;
 import android.telephony.CellIdentityNr;
@@ -28,30 +29,89 @@ import android.telephony.CellSignalStrengthGsm;
 import android.telephony.CellSignalStrengthLte;
 import android.telephony.CellSignalStrengthNr;
 import android.telephony.CellSignalStrengthWcdma;
-import android.telephony.PhoneStateListener;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CellMonitorService extends Service implements LocationListener {
     private static final String TAG = "CellMonitorService";
+    public static final String ACTION_IMPORT_REFERENCE = "com.forensics.cellidcollector.IMPORT_REFERENCE";
+    public static final String EXTRA_REFERENCE_PATH = "reference_path";
+    public static final String ACTION_CONFIGURE_SYNC = "com.forensics.cellidcollector.CONFIGURE_SYNC";
+    public static final String EXTRA_SYNC_ENDPOINT = "sync_endpoint";
+    // Re-runs the anomaly rules over every stored observation, replacing their alerts
+    public static final String ACTION_RESCAN_ANOMALIES = "com.forensics.cellidcollector.RESCAN_ANOMALIES";
+    // Rebuilds coverage tiles and site aggregates from scratch
+    public static final String ACTION_REBUILD_DERIVED = "com.forensics.cellidcollector.REBUILD_DERIVED";
+    // Purges observations and what was derived from them. Optional extras narrow the purge and
+    // combine with AND: a time range, technologies, and operators as "mcc-mnc"; none purges everything.
+    public static final String ACTION_PURGE = "com.forensics.cellidcollector.PURGE";
+    public static final String EXTRA_PURGE_FROM = "purge_from";
+    public static final String EXTRA_PURGE_TO = "purge_to";
+    public static final String EXTRA_PURGE_TECHNOLOGIES = "purge_technologies";
+    public static final String EXTRA_PURGE_OPERATORS = "purge_operators";
+    // Switches a database created before incremental auto_vacuum with one full VACUUM
+    public static final String ACTION_COMPACT = "com.forensics.cellidcollector.COMPACT";
+    // Broadcast back to the activity while maintenance runs
+    public static final String PURGE_PROGRESS = "PURGE_PROGRESS";
+    public static final String PURGE_COMPLETE = "PURGE_COMPLETE";
+    public static final String COMPACT_COMPLETE = "COMPACT_COMPLETE";
+    public static final String EXTRA_DELETED = "deleted";
+    public static final String EXTRA_TOTAL = "total";
+    public static final String EXTRA_COMPACT_RESULT = "compact_result";
+    public static final int COMPACT_REFUSED = 0;
+    public static final int COMPACT_CONVERTED = 1;
+    public static final int COMPACT_RELEASED = 2;
+    private static final String REFERENCE_INDEX_FILE = "reference_towers.idx";
     private static final String CHANNEL_ID = "CellMonitorChannel";
+    private static final String ALERT_CHANNEL_ID = "CellAlertChannel";
     private static final int NOTIFICATION_ID = 1;
+    private static final int ALERT_NOTIFICATION_ID = 2;
     private static final long LOCATION_UPDATE_INTERVAL = 10000;
     private static final long CELL_SCAN_INTERVAL = 5000;
+    private static final long MAINTENANCE_SHUTDOWN_TIMEOUT = 2000;
+    private static final long SYNC_INTERVAL = 60000;
+    // Per-run budget and pacing keep sync a trickle next to capture; the rest goes next run
+    private static final int SYNC_MAX_CHUNKS_PER_RUN = 100;
+    private static final long SYNC_CHUNK_PAUSE_MS = 250;
     
     private final IBinder binder = new LocalBinder();
     private TelephonyManager telephonyManager;
+    private SubscriptionManager subscriptionManager;
     private LocationManager locationManager;
     private DatabaseHelper dbHelper;
+    private CellDataWriter cellDataWriter;
+    private AnomalyDetector anomalyDetector;
+    private SignalSeriesStore signalSeriesStore;
+    private ExecutorService maintenanceExecutor;
+    private ScheduledExecutorService syncExecutor;
     private Handler scanHandler;
     private Runnable scanRunnable;
+    // Read by maintenance tasks to refuse work that must not overlap capture
+    private volatile boolean monitoring = false;
     
-    private Location currentLocation;
-    private int totalCellsDetected = 0;
+    // Keyed by subscription id; only touched from the main thread
+    private final Map<Integer, SubscriptionScanWorker> scanWorkers = new HashMap<>();
+    
+    private volatile Location currentLocation;
+    private volatile ReferenceTowerIndex referenceIndex;
+    private final AtomicInteger totalCellsDetected = new AtomicInteger();
+    private final AtomicInteger totalAlerts = new AtomicInteger();
     
     public class LocalBinder extends Binder {
         CellMonitorService getService() {
@@ -65,10 +125,26 @@ public class CellMonitorService extends Service implements LocationListener {
         Log.d(TAG, "Service created");
         
         telephonyManager = (TelephonyManager) getSystemService(Context.TELEPHONY_SERVICE);
+        subscriptionManager = (SubscriptionManager) getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
         locationManager = (LocationManager) getSystemService(Context.LOCATION_SERVICE);
         dbHelper = new DatabaseHelper(this);
+        anomalyDetector = AnomalyDetector.createDefault();
+        maintenanceExecutor = Executors.newSingleThreadExecutor();
+        // Seals and replays signal series on the maintenance executor; the writer only appends in memory
+        signalSeriesStore = new SignalSeriesStore(dbHelper, maintenanceExecutor);
+        cellDataWriter = new CellDataWriter(dbHelper, this::onBatchWritten);
         scanHandler = new Handler(Looper.getMainLooper());
         
+        maintenanceExecutor.execute(new CoverageTileRebuildTask(dbHelper, false));
+        maintenanceExecutor.execute(this::loadReferenceIndex);
+        signalSeriesStore.start();
+        
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "SyncEngine"));
+        syncExecutor.scheduleWithFixedDelay(this::runSync, SYNC_INTERVAL, SYNC_INTERVAL, TimeUnit.MILLISECONDS);
+        
         createNotificationChannel();
         startLocationUpdates();
         setupCellScanning();
@@ -81,7 +157,26 @@ public class CellMonitorService extends Service implements LocationListener {
         Notification notification = createNotification();
         startForeground(NOTIFICATION_ID, notification);
         
-        startCellMonitoring();
+        if (intent != null && ACTION_IMPORT_REFERENCE.equals(intent.getAction())) {
+            String path = intent.getStringExtra(EXTRA_REFERENCE_PATH);
+            if (path != null) {
+                maintenanceExecutor.execute(() -> importReferenceDatabase(new File(path)));
+            }
+        } else if (intent != null && ACTION_CONFIGURE_SYNC.equals(intent.getAction())) {
+            SyncSettings.setEndpoint(this, intent.getStringExtra(EXTRA_SYNC_ENDPOINT));
+            syncExecutor.execute(this::runSync);
+        } else if (intent != null && ACTION_RESCAN_ANOMALIES.equals(intent.getAction())) {
+            runMaintenance(new AnomalyBulkScanTask(dbHelper, (rowsScanned, alertsRaised) ->
+                Log.i(TAG, "Anomaly rescan: " + alertsRaised + " alerts over " + rowsScanned + " rows")));
+        } else if (intent != null && ACTION_REBUILD_DERIVED.equals(intent.getAction())) {
+            runMaintenance(new CoverageTileRebuildTask(dbHelper, true));
+        } else if (intent != null && ACTION_PURGE.equals(intent.getAction())) {
+            purge(toPurgeRequest(intent));
+        } else if (intent != null && ACTION_COMPACT.equals(intent.getAction())) {
+            runMaintenance(this::compactDatabase);
+        } else {
+            startCellMonitoring();
+        }
         
         return START_STICKY;
     }
@@ -99,6 +194,36 @@ public class CellMonitorService extends Service implements LocationListener {
         stopCellMonitoring();
         stopLocationUpdates();
         
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+            try {
+                maintenanceExecutor.awaitTermination(MAINTENANCE_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        if (syncExecutor != null) {
+            // The high-water mark only moves after an acknowledged chunk, so interrupting is safe
+            syncExecutor.shutdownNow();
+            try {
+                syncExecutor.awaitTermination(MAINTENANCE_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        if (cellDataWriter != null) {
+            cellDataWriter.close();
+        }
+        
+        if (signalSeriesStore != null) {
+            signalSeriesStore.sealAll();
+        }
+        
+        closeReferenceIndex(referenceIndex);
+        referenceIndex = null;
+        
         if (dbHelper != null) {
             dbHelper.close();
         }
@@ -113,8 +238,16 @@ public class CellMonitorService extends Service implements LocationListener {
             );
             channel.setDescription("Background cell tower monitoring for forensic analysis");
             
+            NotificationChannel alertChannel = new NotificationChannel(
+                ALERT_CHANNEL_ID,
+                "Rogue Base Station Alerts",
+                NotificationManager.IMPORTANCE_HIGH
+            );
+            alertChannel.setDescription("Anomalies that may indicate an IMSI catcher");
+            
             NotificationManager manager = getSystemService(NotificationManager.class);
             manager.createNotificationChannel(channel);
+            manager.createNotificationChannel(alertChannel);
         }
     }
 
@@ -123,9 +256,14 @@ public class CellMonitorService extends Service implements LocationListener {
         PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, notificationIntent, 
             PendingIntent.FLAG_IMMUTABLE);
 
+        String text = "Monitoring cell towers - " + totalCellsDetected.get() + " detected";
+        if (totalAlerts.get() > 0) {
+            text += ", " + totalAlerts.get() + " alerts";
+        }
+        
         return new NotificationCompat.Builder(this, CHANNEL_ID)
             .setContentTitle("Cell ID Forensics")
-            .setContentText("Monitoring cell towers - " + totalCellsDetected + " detected")
+            .setContentText(text)
             .setSmallIcon(android.R.drawable.ic_dialog_info)
             .setContentIntent(pendingIntent)
             .setOngoing(true)
@@ -139,6 +277,30 @@ public class CellMonitorService extends Service implements LocationListener {
         manager.notify(NOTIFICATION_ID, notification);
     }
 
+    private void showAlertNotification(AnomalyAlert alert, int count) {
+        Intent notificationIntent = new Intent(this, MainActivity.class);
+        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, notificationIntent, 
+            PendingIntent.FLAG_IMMUTABLE);
+        
+        String title = alert.getSeverity() + " anomaly: " + alert.rule;
+        if (count > 1) {
+            title += " (+" + (count - 1) + " more)";
+        }
+        
+        Notification notification = new NotificationCompat.Builder(this, ALERT_CHANNEL_ID)
+            .setContentTitle(title)
+            .setContentText(alert.message)
+            .setStyle(new NotificationCompat.BigTextStyle().bigText(alert.toString()))
+            .setSmallIcon(android.R.drawable.ic_dialog_alert)
+            .setContentIntent(pendingIntent)
+            .setAutoCancel(true)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .build();
+        
+        NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        manager.notify(ALERT_NOTIFICATION_ID, notification);
+    }
+
     private void startLocationUpdates() {
         try {
             if (locationManager != null) {
@@ -183,59 +345,310 @@ public class CellMonitorService extends Service implements LocationListener {
         scanRunnable = new Runnable() {
             @Override
             public void run() {
-                scanCellTowers();
+                scanAllSubscriptions();
                 scanHandler.postDelayed(this, CELL_SCAN_INTERVAL);
             }
         };
     }
 
     private void startCellMonitoring() {
+        if (monitoring) {
+            return;
+        }
         Log.d(TAG, "Starting cell monitoring");
+        monitoring = true;
         
-        scanHandler.post(scanRunnable);
+        refreshScanWorkers();
         
         try {
-            telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_CELL_LOCATION);
+            subscriptionManager.addOnSubscriptionsChangedListener(subscriptionsChangedListener);
         } catch (SecurityException e) {
-            Log.e(TAG, "Security exception starting cell monitoring", e);
+            Log.e(TAG, "Security exception listening for subscription changes", e);
         }
+        
+        scanHandler.post(scanRunnable);
     }
 
     private void stopCellMonitoring() {
         Log.d(TAG, "Stopping cell monitoring");
+        monitoring = false;
         
         scanHandler.removeCallbacks(scanRunnable);
-        telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_NONE);
+        subscriptionManager.removeOnSubscriptionsChangedListener(subscriptionsChangedListener);
+        
+        for (SubscriptionScanWorker worker : scanWorkers.values()) {
+            worker.stop();
+        }
+        scanWorkers.clear();
     }
 
-    private void scanCellTowers() {
-        try {
-            List<CellInfo> cellInfoList = telephonyManager.getAllCellInfo();
+    private void refreshScanWorkers() {
+        Map<Integer, Integer> activeSlots = getActiveSubscriptionSlots();
+        
+        List<Integer> removed = new ArrayList<>();
+        for (Integer subscriptionId : scanWorkers.keySet()) {
+            if (!activeSlots.containsKey(subscriptionId)) {
+                removed.add(subscriptionId);
+            }
+        }
+        for (Integer subscriptionId : removed) {
+            scanWorkers.remove(subscriptionId).stop();
+            Log.d(TAG, "Removed scan worker for subscription " + subscriptionId);
+        }
+        
+        for (Map.Entry<Integer, Integer> entry : activeSlots.entrySet()) {
+            int subscriptionId = entry.getKey();
+            if (scanWorkers.containsKey(subscriptionId)) {
+                continue;
+            }
             
-            if (cellInfoList != null) {
-                for (CellInfo cellInfo : cellInfoList) {
-                    processCellInfo(cellInfo);
+            TelephonyManager manager = subscriptionId == CellData.UNKNOWN_SUBSCRIPTION
+                ? telephonyManager
+                : telephonyManager.createForSubscriptionId(subscriptionId);
+            SubscriptionScanWorker worker = new SubscriptionScanWorker(
+                manager, subscriptionId, entry.getValue(), this::onCellInfoScanned);
+            scanWorkers.put(subscriptionId, worker);
+            worker.start();
+            Log.d(TAG, "Added scan worker for subscription " + subscriptionId + " (slot " + entry.getValue() + ")");
+        }
+    }
+
+    private Map<Integer, Integer> getActiveSubscriptionSlots() {
+        Map<Integer, Integer> slots = new HashMap<>();
+        
+        try {
+            List<SubscriptionInfo> subscriptions = subscriptionManager.getActiveSubscriptionInfoList();
+            if (subscriptions != null) {
+                for (SubscriptionInfo info : subscriptions) {
+                    slots.put(info.getSubscriptionId(), info.getSimSlotIndex());
                 }
-                
-                Intent updateIntent = new Intent("CELL_DATA_UPDATE");
-                sendBroadcast(updateIntent);
-                
-                updateNotification();
             }
         } catch (SecurityException e) {
-            Log.e(TAG, "Security exception scanning cell towers", e);
+            Log.e(TAG, "Security exception reading active subscriptions", e);
         }
+        
+        // No readable subscriptions (no SIM, or permission denied): fall back to the default modem
+        if (slots.isEmpty()) {
+            slots.put(CellData.UNKNOWN_SUBSCRIPTION, CellData.UNKNOWN_SLOT);
+        }
+        
+        return slots;
     }
 
-    private void processCellInfo(CellInfo cellInfo) {
+    private final SubscriptionManager.OnSubscriptionsChangedListener subscriptionsChangedListener =
+        new SubscriptionManager.OnSubscriptionsChangedListener() {
+            @Override
+            public void onSubscriptionsChanged() {
+                if (monitoring) {
+                    Log.d(TAG, "Active subscriptions changed");
+                    refreshScanWorkers();
+                }
+            }
+        };
+
+    private void scanAllSubscriptions() {
+        for (SubscriptionScanWorker worker : scanWorkers.values()) {
+            worker.requestScan();
+        }
+    }
+
+    // Called on the worker's scan thread; workers for different SIMs run concurrently
+    private void onCellInfoScanned(SubscriptionScanWorker worker, List<CellInfo> cellInfoList) {
+        for (CellInfo cellInfo : cellInfoList) {
+            processCellInfo(cellInfo, worker.getSubscriptionId(), worker.getSimSlot());
+        }
+    }
+
+    // Called on the writer thread once a batch is committed
+    private void onBatchWritten(List<CellData> batch, int inserted) {
+        if (inserted <= 0) {
+            return;
+        }
+        totalCellsDetected.addAndGet(inserted);
+        signalSeriesStore.append(batch);
+        
+        // Rules only keep per-cell state, so evaluating here costs a few map lookups per row
+        // and keeps detection off the scan threads
+        List<AnomalyAlert> alerts = anomalyDetector.processBatch(batch);
+        if (!alerts.isEmpty()) {
+            dbHelper.insertAlerts(alerts);
+            totalAlerts.addAndGet(alerts.size());
+            
+            AnomalyAlert top = alerts.get(0);
+            for (AnomalyAlert alert : alerts) {
+                Log.w(TAG, "Anomaly: " + alert);
+                if (alert.score > top.score) {
+                    top = alert;
+                }
+            }
+            final AnomalyAlert shown = top;
+            final int count = alerts.size();
+            scanHandler.post(() -> showAlertNotification(shown, count));
+        }
+        
+        scanHandler.post(() -> {
+            Intent updateIntent = new Intent("CELL_DATA_UPDATE");
+            sendBroadcast(updateIntent);
+            
+            updateNotification();
+        });
+    }
+
+    private void loadReferenceIndex() {
+        File indexFile = new File(getFilesDir(), REFERENCE_INDEX_FILE);
+        if (!indexFile.exists()) {
+            Log.d(TAG, "No reference tower index installed");
+            return;
+        }
+        
+        try {
+            ReferenceTowerIndex previous = referenceIndex;
+            referenceIndex = ReferenceTowerIndex.open(indexFile);
+            closeReferenceIndex(previous);
+            Log.i(TAG, "Loaded reference tower index with " + referenceIndex.size() + " towers");
+        } catch (IOException e) {
+            Log.e(TAG, "Error opening reference tower index", e);
+        }
+    }
+
+    private void importReferenceDatabase(File csvFile) {
+        Log.i(TAG, "Importing reference towers from " + csvFile);
+        long start = System.currentTimeMillis();
+        
+        // Build next to the live index so capture keeps using it until the new one is complete
+        File indexFile = new File(getFilesDir(), REFERENCE_INDEX_FILE + ".new");
+        ReferenceTowerImporter importer = new ReferenceTowerImporter(getCacheDir());
+        importer.setProgressListener((rowsRead, rowsAccepted) ->
+            Log.d(TAG, "Reference import: " + rowsAccepted + "/" + rowsRead + " rows"));
+        
+        try {
+            long towers = importer.importCsv(csvFile, indexFile);
+            
+            ReferenceTowerIndex previous = referenceIndex;
+            referenceIndex = null;
+            closeReferenceIndex(previous);
+            if (!indexFile.renameTo(new File(getFilesDir(), REFERENCE_INDEX_FILE))) {
+                throw new IOException("Cannot install reference tower index");
+            }
+            loadReferenceIndex();
+            
+            Log.i(TAG, "Imported " + towers + " reference towers in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            Log.e(TAG, "Reference tower import failed", e);
+            indexFile.delete();
+        }
+        
+        if (!monitoring) {
+            scanHandler.post(this::stopSelf);
+        }
+    }
+
+    // Maintenance actions can start the service without capture; like an import, it stops again
+    // once the work is done unless monitoring was started meanwhile
+    private void runMaintenance(Runnable task) {
+        maintenanceExecutor.execute(() -> {
+            task.run();
+            scanHandler.post(() -> {
+                if (!monitoring) {
+                    stopSelf();
+                }
+            });
+        });
+    }
+
+    private static PurgeRequest toPurgeRequest(Intent intent) {
+        PurgeRequest request = PurgeRequest.timeRange(intent.getLongExtra(EXTRA_PURGE_FROM, Long.MIN_VALUE),
+            intent.getLongExtra(EXTRA_PURGE_TO, Long.MAX_VALUE));
+        String[] technologies = intent.getStringArrayExtra(EXTRA_PURGE_TECHNOLOGIES);
+        if (technologies != null) {
+            request.withTechnologies(technologies);
+        }
+        String[] operators = intent.getStringArrayExtra(EXTRA_PURGE_OPERATORS);
+        if (operators != null) {
+            request.withOperators(operators);
+        }
+        return request;
+    }
+
+    // Purges and the rebuild of whatever the purge left stale run on the maintenance executor,
+    // so they never overlap another rebuild and all go through this service's helper
+    private void purge(PurgeRequest request) {
+        runMaintenance(() -> {
+            new PurgeTask(dbHelper, signalSeriesStore, request, new PurgeTask.Listener() {
+                @Override
+                public void onPurgeProgress(int deleted, int total) {
+                    sendBroadcast(new Intent(PURGE_PROGRESS).putExtra(EXTRA_DELETED, deleted).putExtra(EXTRA_TOTAL, total));
+                }
+
+                @Override
+                public void onPurgeComplete(int deleted) {
+                    sendBroadcast(new Intent(PURGE_COMPLETE).putExtra(EXTRA_DELETED, deleted));
+                }
+            }).run();
+            
+            if (!Thread.currentThread().isInterrupted()) {
+                // Skips whichever aggregate the purge left exact
+                new CoverageTileRebuildTask(dbHelper, false).run();
+            }
+        });
+    }
+
+    // The VACUUM holds an exclusive lock for as long as it rewrites the file, so it is refused
+    // while this service is capturing or the writer still has observations queued
+    private void compactDatabase() {
+        int result = COMPACT_REFUSED;
+        if (monitoring || !cellDataWriter.isIdle()) {
+            Log.w(TAG, "Not compacting while capture is running");
+        } else {
+            try {
+                if (dbHelper.ensureIncrementalVacuum()) {
+                    result = COMPACT_CONVERTED;
+                } else {
+                    dbHelper.incrementalVacuum((int) Math.min(Integer.MAX_VALUE, dbHelper.getFreePageCount()));
+                    result = COMPACT_RELEASED;
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error compacting database", e);
+            }
+        }
+        sendBroadcast(new Intent(COMPACT_COMPLETE).putExtra(EXTRA_COMPACT_RESULT, result));
+    }
+
+    private static void closeReferenceIndex(ReferenceTowerIndex index) {
+        if (index == null) {
+            return;
+        }
+        try {
+            index.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Error closing reference tower index", e);
+        }
+    }
+
+    private static void enrichWithReference(CellData cellData, ReferenceTowerIndex index) {
+        ReferenceTower tower = index.lookup(cellData);
+        if (tower != null) {
+            cellData.referenceStatus = CellData.REFERENCE_FOUND;
+            cellData.referenceLatitude = tower.latitude;
+            cellData.referenceLongitude = tower.longitude;
+            cellData.referenceRange = tower.range;
+        } else if (cellData.getCellIdentity() >= 0) {
+            cellData.referenceStatus = CellData.REFERENCE_NOT_FOUND;
+        }
+    }
+
+    private void processCellInfo(CellInfo cellInfo, int subscriptionId, int simSlot) {
         CellData cellData = new CellData();
         cellData.timestamp = System.currentTimeMillis();
         cellData.isRegistered = cellInfo.isRegistered();
+        cellData.subscriptionId = subscriptionId;
+        cellData.simSlot = simSlot;
         
-        if (currentLocation != null) {
-            cellData.latitude = currentLocation.getLatitude();
-            cellData.longitude = currentLocation.getLongitude();
-            cellData.accuracy = currentLocation.getAccuracy();
+        Location location = currentLocation;
+        if (location != null) {
+            cellData.latitude = location.getLatitude();
+            cellData.longitude = location.getLongitude();
+            cellData.accuracy = location.getAccuracy();
         }
 
         if (cellInfo instanceof CellInfoLte) {
@@ -250,15 +663,20 @@ public class CellMonitorService extends Service implements LocationListener {
 
         ProviderHelper.enrichCellDataWithProvider(cellData);
         
+        ReferenceTowerIndex index = referenceIndex;
+        if (index != null) {
+            enrichWithReference(cellData, index);
+            if (cellData.referenceStatus == CellData.REFERENCE_NOT_FOUND) {
+                Log.w(TAG, "Cell not in reference set: " + cellData.technology + " " + cellData.mcc + "-" +
+                      cellData.mnc + " LAC/TAC " + cellData.lac + " Cell " + cellData.cellId);
+            }
+        }
+        
         String provider = ProviderHelper.getProviderName(cellData.mcc, cellData.mnc);
         Log.d(TAG, "Detected " + provider + " tower: " + cellData.technology + " - " + cellData.cellId + 
-              " (Registered: " + cellData.isRegistered + ")");
+              " (Registered: " + cellData.isRegistered + ", Slot: " + simSlot + ")");
 
-        long id = dbHelper.insertCellData(cellData);
-        if (id > 0) {
-            totalCellsDetected++;
-            Log.d(TAG, "Saved " + provider + " cell data: " + cellData.technology + " - " + cellData.cellId);
-        }
+        cellDataWriter.enqueue(cellData);
     }
 
     private void processCellInfoLte(CellInfoLte lteInfo, CellData cellData) {
@@ -273,11 +691,12 @@ public class CellMonitorService extends Service implements LocationListener {
         cellData.signalStrength = signalStrength.getDbm();
         cellData.pci = identity.getPci();
         cellData.earfcn = identity.getEarfcn();
+        cellData.timingAdvance = normalizeTimingAdvance(signalStrength.getTimingAdvance());
         
         cellData.additionalInfo = String.format(
             "eNodeB:%d,Sector:%d,RSRP:%d,RSRQ:%d,RSSNR:%d,CQI:%d,TimingAdvance:%d",
-            identity.getCi() >> 8,
-            identity.getCi() & 0xFF,
+            cellData.getSiteId(),
+            cellData.getSector(),
             signalStrength.getRsrp(),
             signalStrength.getRsrq(),
             signalStrength.getRssnr(),
@@ -298,6 +717,7 @@ public class CellMonitorService extends Service implements LocationListener {
         cellData.signalStrength = signalStrength.getDbm();
         cellData.arfcn = identity.getArfcn();
         cellData.bsic = identity.getBsic();
+        cellData.timingAdvance = normalizeTimingAdvance(signalStrength.getTimingAdvance());
         
         cellData.additionalInfo = String.format(
             "BSIC:%d,TimingAdvance:%d,BitErrorRate:%d",
@@ -342,21 +762,18 @@ public class CellMonitorService extends Service implements LocationListener {
         cellData.nrarfcn = identity.getNrarfcn();
         
         cellData.additionalInfo = String.format(
-            "gNodeB:%d,SS-RSRP:%d,SS-RSRQ:%d,SS-SINR:%d",
-            identity.getNci() >> 12,
+            "gNodeB:%d,Sector:%d,SS-RSRP:%d,SS-RSRQ:%d,SS-SINR:%d",
+            cellData.getSiteId(),
+            cellData.getSector(),
             signalStrength.getSsRsrp(),
             signalStrength.getSsRsrq(),
             signalStrength.getSsSinr()
         );
     }
 
-    private PhoneStateListener phoneStateListener = new PhoneStateListener() {
-        @Override
-        public void onCellLocationChanged(android.telephony.CellLocation location) {
-            Log.d(TAG, "Cell location changed");
-            scanCellTowers();
-        }
-    };
+    private static int normalizeTimingAdvance(int timingAdvance) {
+        return timingAdvance == CellInfo.UNAVAILABLE ? -1 : timingAdvance;
+    }
 
     @Override
     public void onLocationChanged(Location location) {
@@ -377,7 +794,46 @@ public class CellMonitorService extends Service implements LocationListener {
         Log.d(TAG, "Location provider disabled: " + provider);
     }
 
+    // Ships observations captured since the last acknowledged chunk to the configured endpoint.
+    // Waits while the capture writer has work queued so uploads never delay a batch insert.
+    private void runSync() {
+        String endpoint = SyncSettings.getEndpoint(this);
+        if (endpoint == null) {
+            return;
+        }
+        
+        try {
+            SyncClient client = new SyncClient(endpoint, SyncSettings.getDeviceId(this));
+            SyncEngine.Checkpoint checkpoint = new SyncEngine.Checkpoint() {
+                @Override
+                public long load() {
+                    return dbHelper.getSyncHighWaterMark();
+                }
+                
+                @Override
+                public void save(long highWaterMark) {
+                    dbHelper.setSyncHighWaterMark(highWaterMark);
+                }
+            };
+            
+            SyncEngine.Result result = new SyncEngine(dbHelper, client, checkpoint, cellDataWriter::isIdle)
+                .setChunkPauseMs(SYNC_CHUNK_PAUSE_MS)
+                .setMaxChunks(SYNC_MAX_CHUNKS_PER_RUN)
+                .run();
+            
+            if (result.failure != null) {
+                Log.w(TAG, "Sync stopped: " + result);
+            } else if (result.chunks > 0) {
+                Log.i(TAG, "Sync: " + result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.e(TAG, "Sync failed", e);
+        }
+    }
+
     public int getTotalCellsDetected() {
-        return totalCellsDetected;
+        return totalCellsDetected.get();
     }
 }
@@ -0,0 +1,61 @@
+package com.forensics.cellidcollector;
+
+import android.os.Process;
+import android.util.Log;
+
+public class CoverageTileRebuildTask implements Runnable {
+    private static final String TAG = "CoverageTileRebuild";
+
+    private final DatabaseHelper dbHelper;
+    private final boolean force;
+
+    public CoverageTileRebuildTask(DatabaseHelper dbHelper, boolean force) {
+        this.dbHelper = dbHelper;
+        this.force = force;
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+        if (force || dbHelper.isCoverageRebuildRequired()) {
+            long start = System.currentTimeMillis();
+            try {
+                dbHelper.rebuildCoverageTiles();
+                Log.i(TAG, "Coverage tiles rebuilt in " + (System.currentTimeMillis() - start) + " ms");
+            } catch (Exception e) {
+                Log.e(TAG, "Error rebuilding coverage tiles", e);
+            }
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+
+        // Rows from before site columns existed are filled in first; sites are only aggregated
+        // once every row carries its site
+        if (dbHelper.isSiteBackfillRequired()) {
+            long start = System.currentTimeMillis();
+            try {
+                dbHelper.backfillSiteColumns();
+                Log.i(TAG, "Site columns backfilled in " + (System.currentTimeMillis() - start) + " ms");
+            } catch (Exception e) {
+                Log.e(TAG, "Error backfilling site columns", e);
+            }
+            if (Thread.currentThread().isInterrupted() || dbHelper.isSiteBackfillRequired()) {
+                return;
+            }
+        }
+
+        // Site aggregates are derived from the same rows and rebuilt on the same schedule
+        if (force || dbHelper.isSiteRebuildRequired()) {
+            long start = System.currentTimeMillis();
+            try {
+                dbHelper.rebuildSites();
+                Log.i(TAG, "Sites rebuilt in " + (System.currentTimeMillis() - start) + " ms");
+            } catch (Exception e) {
+                Log.e(TAG, "Error rebuilding sites", e);
+            }
+        }
+    }
+}
@@ -5,17 +5,24 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
-public class DatabaseHelper extends SQLiteOpenHelper {
+public class DatabaseHelper extends SQLiteOpenHelper implements CellDataStore {
     private static final String TAG = "DatabaseHelper";
     private static final String DATABASE_NAME = "cellid_forensics.db";
-    private static final int DATABASE_VERSION = 2;
+    private static final int DATABASE_VERSION = 8;
     
     private static final String TABLE_CELL_DATA = "cell_data";
+    private static final String TABLE_COVERAGE_TILE = "coverage_tile";
+    private static final String TABLE_METADATA = "metadata";
+    private static final String TABLE_ALERTS = "alerts";
+    private static final String TABLE_SIGNAL_SERIES = "signal_series";
+    private static final String TABLE_SITE = "site";
     
     private static final String COLUMN_ID = "_id";
     private static final String COLUMN_TIMESTAMP = "timestamp";
@@ -36,7 +43,16 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_UARFCN = "uarfcn";
     private static final String COLUMN_ARFCN = "arfcn";
     private static final String COLUMN_NRARFCN = "nrarfcn";
+    private static final String COLUMN_TIMING_ADVANCE = "timing_advance";
+    private static final String COLUMN_SUBSCRIPTION_ID = "subscription_id";
+    private static final String COLUMN_SIM_SLOT = "sim_slot";
+    private static final String COLUMN_IN_REFERENCE = "in_reference";
+    private static final String COLUMN_REF_LATITUDE = "ref_latitude";
+    private static final String COLUMN_REF_LONGITUDE = "ref_longitude";
+    private static final String COLUMN_REF_RANGE = "ref_range";
     private static final String COLUMN_ADDITIONAL_INFO = "additional_info";
+    private static final String COLUMN_SITE_ID = "site_id";
+    private static final String COLUMN_SECTOR = "sector";
     
     private static final String CREATE_TABLE_CELL_DATA = 
         "CREATE TABLE " + TABLE_CELL_DATA + " (" +
@@ -59,9 +75,224 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         COLUMN_UARFCN + " INTEGER DEFAULT -1, " +
         COLUMN_ARFCN + " INTEGER DEFAULT -1, " +
         COLUMN_NRARFCN + " INTEGER DEFAULT -1, " +
-        COLUMN_ADDITIONAL_INFO + " TEXT" +
+        COLUMN_TIMING_ADVANCE + " INTEGER DEFAULT -1, " +
+        COLUMN_SUBSCRIPTION_ID + " INTEGER DEFAULT -1, " +
+        COLUMN_SIM_SLOT + " INTEGER DEFAULT -1, " +
+        COLUMN_IN_REFERENCE + " INTEGER DEFAULT -1, " +
+        COLUMN_REF_LATITUDE + " REAL DEFAULT 0, " +
+        COLUMN_REF_LONGITUDE + " REAL DEFAULT 0, " +
+        COLUMN_REF_RANGE + " INTEGER DEFAULT -1, " +
+        COLUMN_ADDITIONAL_INFO + " TEXT, " +
+        COLUMN_SITE_ID + " INTEGER DEFAULT -1, " +
+        COLUMN_SECTOR + " INTEGER DEFAULT -1" +
         ");";
     
+    private static final String COLUMN_ZOOM = "zoom";
+    private static final String COLUMN_TILE_X = "tile_x";
+    private static final String COLUMN_TILE_Y = "tile_y";
+    private static final String COLUMN_QUADKEY = "quadkey";
+    private static final String COLUMN_GROUP_TYPE = "group_type";
+    private static final String COLUMN_GROUP_KEY = "group_key";
+    private static final String COLUMN_SAMPLE_COUNT = "sample_count";
+    private static final String COLUMN_SIGNAL_COUNT = "signal_count";
+    private static final String COLUMN_SIGNAL_SUM = "signal_sum";
+    private static final String COLUMN_BEST_SIGNAL = "best_signal";
+    private static final String COLUMN_LAST_SEEN = "last_seen";
+    
+    private static final String COLUMN_RULE = "rule";
+    private static final String COLUMN_SCORE = "score";
+    private static final String COLUMN_SEVERITY = "severity";
+    private static final String COLUMN_OBSERVATION_ID = "observation_id";
+    private static final String COLUMN_MESSAGE = "message";
+    
+    private static final String COLUMN_CELL_KEY = "cell_key";
+    private static final String COLUMN_START_TIMESTAMP = "start_ts";
+    private static final String COLUMN_END_TIMESTAMP = "end_ts";
+    private static final String COLUMN_DATA = "data";
+    
+    private static final String COLUMN_SECTORS = "sectors";
+    private static final String COLUMN_CARRIERS = "carriers";
+    private static final String COLUMN_PCIS = "pcis";
+    private static final String COLUMN_FIX_COUNT = "fix_count";
+    private static final String COLUMN_WEIGHT_SUM = "weight_sum";
+    private static final String COLUMN_LATITUDE_SUM = "latitude_sum";
+    private static final String COLUMN_LONGITUDE_SUM = "longitude_sum";
+    private static final String COLUMN_FIRST_SEEN = "first_seen";
+    
+    private static final String COLUMN_KEY = "key";
+    private static final String COLUMN_VALUE = "value";
+    
+    private static final String META_COVERAGE_REBUILD_REQUIRED = "coverage_rebuild_required";
+    private static final String META_SYNC_HIGH_WATER_MARK = "sync_high_water_mark";
+    private static final String META_SITE_REBUILD_REQUIRED = "site_rebuild_required";
+    private static final String META_SITE_BACKFILL_REQUIRED = "site_backfill_required";
+    private static final String META_SIGNAL_SERIES_MARK = "signal_series_mark";
+    
+    private static final int REBUILD_CHUNK_SIZE = 5000;
+    private static final int SCAN_PAGE_SIZE = 2000;
+    // Each sealed block decodes to up to 720 samples
+    private static final int SERIES_PURGE_CHUNK_SIZE = 200;
+    
+    // Column sets for reads that need only part of a row; fields outside the projection keep
+    // CellData's defaults
+    public enum Projection {
+        FULL(null),
+        // Provider summaries and the recent observations list
+        SUMMARY(new String[] {
+            COLUMN_ID, COLUMN_TIMESTAMP, COLUMN_TECHNOLOGY, COLUMN_CELL_ID, COLUMN_LAC, COLUMN_MCC, COLUMN_MNC,
+            COLUMN_SIGNAL_STRENGTH, COLUMN_IS_REGISTERED, COLUMN_LATITUDE, COLUMN_LONGITUDE, COLUMN_SIM_SLOT
+        }),
+        // Coverage tile accumulation
+        COVERAGE(new String[] {
+            COLUMN_ID, COLUMN_TIMESTAMP, COLUMN_TECHNOLOGY, COLUMN_CELL_ID, COLUMN_LAC, COLUMN_MCC, COLUMN_MNC,
+            COLUMN_SIGNAL_STRENGTH, COLUMN_LATITUDE, COLUMN_LONGITUDE
+        }),
+        // Site aggregation
+        SITE(new String[] {
+            COLUMN_ID, COLUMN_TIMESTAMP, COLUMN_TECHNOLOGY, COLUMN_CELL_ID, COLUMN_MCC, COLUMN_MNC,
+            COLUMN_SIGNAL_STRENGTH, COLUMN_LATITUDE, COLUMN_LONGITUDE, COLUMN_PCI, COLUMN_EARFCN, COLUMN_NRARFCN
+        }),
+        // Signal series replay: id, time, cell key and signal
+        SIGNAL(new String[] {
+            COLUMN_ID, COLUMN_TIMESTAMP, COLUMN_TECHNOLOGY, COLUMN_CELL_ID, COLUMN_LAC, COLUMN_MCC, COLUMN_MNC,
+            COLUMN_SIGNAL_STRENGTH
+        });
+        
+        final String[] columns;
+        final String select;
+        
+        Projection(String[] columns) {
+            this.columns = columns;
+            this.select = columns != null ? String.join(", ", columns) : "*";
+        }
+    }
+    
+    private static final String CREATE_TABLE_COVERAGE_TILE = 
+        "CREATE TABLE " + TABLE_COVERAGE_TILE + " (" +
+        COLUMN_ZOOM + " INTEGER NOT NULL, " +
+        COLUMN_TILE_X + " INTEGER NOT NULL, " +
+        COLUMN_TILE_Y + " INTEGER NOT NULL, " +
+        COLUMN_GROUP_TYPE + " TEXT NOT NULL, " +
+        COLUMN_GROUP_KEY + " TEXT NOT NULL, " +
+        COLUMN_QUADKEY + " TEXT NOT NULL, " +
+        COLUMN_TECHNOLOGY + " TEXT, " +
+        COLUMN_MCC + " TEXT, " +
+        COLUMN_MNC + " TEXT, " +
+        COLUMN_SAMPLE_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+        COLUMN_SIGNAL_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+        COLUMN_SIGNAL_SUM + " INTEGER NOT NULL DEFAULT 0, " +
+        COLUMN_BEST_SIGNAL + " INTEGER, " +
+        COLUMN_LAST_SEEN + " INTEGER NOT NULL DEFAULT 0, " +
+        "PRIMARY KEY (" + COLUMN_ZOOM + ", " + COLUMN_GROUP_TYPE + ", " + COLUMN_TILE_X + ", " +
+        COLUMN_TILE_Y + ", " + COLUMN_GROUP_KEY + ")" +
+        ") WITHOUT ROWID;";
+    
+    private static final String CREATE_INDEX_TILE_GROUP = 
+        "CREATE INDEX idx_tile_group ON " + TABLE_COVERAGE_TILE + "(" + COLUMN_GROUP_KEY + ", " + COLUMN_ZOOM + ");";
+    
+    private static final String CREATE_TABLE_ALERTS = 
+        "CREATE TABLE " + TABLE_ALERTS + " (" +
+        COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+        COLUMN_TIMESTAMP + " INTEGER NOT NULL, " +
+        COLUMN_RULE + " TEXT NOT NULL, " +
+        COLUMN_SCORE + " REAL NOT NULL, " +
+        COLUMN_SEVERITY + " TEXT NOT NULL, " +
+        COLUMN_OBSERVATION_ID + " INTEGER, " +
+        COLUMN_TECHNOLOGY + " TEXT, " +
+        COLUMN_MCC + " TEXT, " +
+        COLUMN_MNC + " TEXT, " +
+        COLUMN_LAC + " TEXT, " +
+        COLUMN_CELL_ID + " TEXT, " +
+        COLUMN_SUBSCRIPTION_ID + " INTEGER DEFAULT -1, " +
+        COLUMN_MESSAGE + " TEXT" +
+        ");";
+    
+    private static final String CREATE_INDEX_ALERT_TIMESTAMP = 
+        "CREATE INDEX idx_alert_timestamp ON " + TABLE_ALERTS + "(" + COLUMN_TIMESTAMP + ");";
+    
+    private static final String CREATE_INDEX_ALERT_OBSERVATION = 
+        "CREATE INDEX idx_alert_observation ON " + TABLE_ALERTS + "(" + COLUMN_OBSERVATION_ID + ");";
+    
+    private static final String CREATE_TABLE_SIGNAL_SERIES = 
+        "CREATE TABLE " + TABLE_SIGNAL_SERIES + " (" +
+        COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+        COLUMN_CELL_KEY + " TEXT NOT NULL, " +
+        COLUMN_TECHNOLOGY + " TEXT, " +
+        COLUMN_MCC + " TEXT, " +
+        COLUMN_MNC + " TEXT, " +
+        COLUMN_START_TIMESTAMP + " INTEGER NOT NULL, " +
+        COLUMN_END_TIMESTAMP + " INTEGER NOT NULL, " +
+        COLUMN_SAMPLE_COUNT + " INTEGER NOT NULL, " +
+        COLUMN_DATA + " BLOB NOT NULL" +
+        ");";
+    
+    private static final String CREATE_INDEX_SERIES_CELL = 
+        "CREATE INDEX idx_series_cell ON " + TABLE_SIGNAL_SERIES + "(" + COLUMN_CELL_KEY + ", " + COLUMN_START_TIMESTAMP + ");";
+    
+    // One row per eNodeB/gNodeB; the position is a signal-weighted centroid kept as running sums
+    private static final String CREATE_TABLE_SITE = 
+        "CREATE TABLE " + TABLE_SITE + " (" +
+        COLUMN_TECHNOLOGY + " TEXT NOT NULL, " +
+        COLUMN_MCC + " TEXT NOT NULL, " +
+        COLUMN_MNC + " TEXT NOT NULL, " +
+        COLUMN_SITE_ID + " INTEGER NOT NULL, " +
+        COLUMN_SECTORS + " TEXT, " +
+        COLUMN_CARRIERS + " TEXT, " +
+        COLUMN_PCIS + " TEXT, " +
+        COLUMN_SAMPLE_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+        COLUMN_FIX_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+        COLUMN_WEIGHT_SUM + " REAL NOT NULL DEFAULT 0, " +
+        COLUMN_LATITUDE_SUM + " REAL NOT NULL DEFAULT 0, " +
+        COLUMN_LONGITUDE_SUM + " REAL NOT NULL DEFAULT 0, " +
+        COLUMN_BEST_SIGNAL + " INTEGER, " +
+        COLUMN_FIRST_SEEN + " INTEGER NOT NULL DEFAULT 0, " +
+        COLUMN_LAST_SEEN + " INTEGER NOT NULL DEFAULT 0, " +
+        "PRIMARY KEY (" + COLUMN_TECHNOLOGY + ", " + COLUMN_MCC + ", " + COLUMN_MNC + ", " + COLUMN_SITE_ID + ")" +
+        ") WITHOUT ROWID;";
+    
+    private static final String CREATE_INDEX_SITE_LAST_SEEN = 
+        "CREATE INDEX idx_site_last_seen ON " + TABLE_SITE + "(" + COLUMN_LAST_SEEN + ");";
+    
+    private static final String SITE_SELECTION = 
+        COLUMN_TECHNOLOGY + " = ? AND " + COLUMN_MCC + " = ? AND " + COLUMN_MNC + " = ? AND " + COLUMN_SITE_ID + " = ?";
+    
+    private static final String CREATE_TABLE_METADATA = 
+        "CREATE TABLE " + TABLE_METADATA + " (" +
+        COLUMN_KEY + " TEXT PRIMARY KEY, " +
+        COLUMN_VALUE + " TEXT" +
+        ");";
+    
+    private static final String UPDATE_COVERAGE_TILE = 
+        "UPDATE " + TABLE_COVERAGE_TILE + " SET " +
+        COLUMN_BEST_SIGNAL + " = CASE WHEN ?1 IS NOT NULL AND (" + COLUMN_BEST_SIGNAL + " IS NULL OR ?1 > " +
+        COLUMN_BEST_SIGNAL + ") THEN ?1 ELSE " + COLUMN_BEST_SIGNAL + " END, " +
+        COLUMN_SAMPLE_COUNT + " = " + COLUMN_SAMPLE_COUNT + " + ?, " +
+        COLUMN_SIGNAL_COUNT + " = " + COLUMN_SIGNAL_COUNT + " + ?, " +
+        COLUMN_SIGNAL_SUM + " = " + COLUMN_SIGNAL_SUM + " + ?, " +
+        COLUMN_LAST_SEEN + " = MAX(" + COLUMN_LAST_SEEN + ", ?) " +
+        "WHERE " + COLUMN_ZOOM + " = ? AND " + COLUMN_GROUP_TYPE + " = ? AND " + COLUMN_TILE_X + " = ? AND " +
+        COLUMN_TILE_Y + " = ? AND " + COLUMN_GROUP_KEY + " = ?";
+    
+    private static final String REMOVE_FROM_COVERAGE_TILE = 
+        "UPDATE " + TABLE_COVERAGE_TILE + " SET " +
+        COLUMN_SAMPLE_COUNT + " = " + COLUMN_SAMPLE_COUNT + " - ?, " +
+        COLUMN_SIGNAL_COUNT + " = " + COLUMN_SIGNAL_COUNT + " - ?, " +
+        COLUMN_SIGNAL_SUM + " = " + COLUMN_SIGNAL_SUM + " - ? " +
+        "WHERE " + COLUMN_ZOOM + " = ? AND " + COLUMN_GROUP_TYPE + " = ? AND " + COLUMN_TILE_X + " = ? AND " +
+        COLUMN_TILE_Y + " = ? AND " + COLUMN_GROUP_KEY + " = ?";
+    
+    private static final String DELETE_EMPTY_COVERAGE_TILE = 
+        "DELETE FROM " + TABLE_COVERAGE_TILE + " WHERE " + COLUMN_SAMPLE_COUNT + " <= 0 AND " +
+        COLUMN_ZOOM + " = ? AND " + COLUMN_GROUP_TYPE + " = ? AND " + COLUMN_TILE_X + " = ? AND " +
+        COLUMN_TILE_Y + " = ? AND " + COLUMN_GROUP_KEY + " = ?";
+    
+    private static final String INSERT_COVERAGE_TILE = 
+        "INSERT INTO " + TABLE_COVERAGE_TILE + " (" +
+        COLUMN_ZOOM + ", " + COLUMN_GROUP_TYPE + ", " + COLUMN_TILE_X + ", " + COLUMN_TILE_Y + ", " +
+        COLUMN_GROUP_KEY + ", " + COLUMN_QUADKEY + ", " + COLUMN_TECHNOLOGY + ", " + COLUMN_MCC + ", " +
+        COLUMN_MNC + ", " + COLUMN_SAMPLE_COUNT + ", " + COLUMN_SIGNAL_COUNT + ", " + COLUMN_SIGNAL_SUM + ", " +
+        COLUMN_BEST_SIGNAL + ", " + COLUMN_LAST_SEEN + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
     private static final String CREATE_INDEX_TIMESTAMP = 
         "CREATE INDEX idx_timestamp ON " + TABLE_CELL_DATA + "(" + COLUMN_TIMESTAMP + ");";
     
@@ -70,9 +301,38 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     
     private static final String CREATE_INDEX_TECHNOLOGY = 
         "CREATE INDEX idx_technology ON " + TABLE_CELL_DATA + "(" + COLUMN_TECHNOLOGY + ");";
+    
+    private static final String CREATE_INDEX_SUBSCRIPTION = 
+        "CREATE INDEX idx_subscription ON " + TABLE_CELL_DATA + "(" + COLUMN_SUBSCRIPTION_ID + ");";
+    
+    private static final String CREATE_INDEX_SITE = 
+        "CREATE INDEX idx_site ON " + TABLE_CELL_DATA + "(" + COLUMN_SITE_ID + ", " + COLUMN_SECTOR + ");";
+    
+    // Mirrors CellData.siteIdOf/sectorOf for rows written before the columns existed: decimal
+    // cell IDs only, skipping the CellInfo.UNAVAILABLE and unavailable-NCI sentinels. Run over
+    // _id ranges by backfillSiteColumns.
+    private static final String BACKFILL_SITE_COLUMNS = 
+        "UPDATE " + TABLE_CELL_DATA + " SET " +
+        COLUMN_SITE_ID + " = CASE " + COLUMN_TECHNOLOGY + " WHEN 'LTE' THEN CAST(" + COLUMN_CELL_ID + " AS INTEGER) >> 8 " +
+        "ELSE CAST(" + COLUMN_CELL_ID + " AS INTEGER) >> 12 END, " +
+        COLUMN_SECTOR + " = CASE " + COLUMN_TECHNOLOGY + " WHEN 'LTE' THEN CAST(" + COLUMN_CELL_ID + " AS INTEGER) & 255 " +
+        "ELSE CAST(" + COLUMN_CELL_ID + " AS INTEGER) & 4095 END " +
+        "WHERE " + COLUMN_TECHNOLOGY + " IN ('LTE', 'NR') AND " + COLUMN_CELL_ID + " <> '' AND " +
+        COLUMN_CELL_ID + " NOT GLOB '*[^0-9]*' AND " +
+        "CAST(" + COLUMN_CELL_ID + " AS INTEGER) NOT IN (2147483647, 9223372036854775807) AND " +
+        COLUMN_ID + " > ? AND " + COLUMN_ID + " <= ?";
 
     public DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Only takes effect on a new, empty database; existing files are converted by
+        // ensureIncrementalVacuum() when the user compacts with capture stopped
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
     }
 
     @Override
@@ -83,6 +343,18 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(CREATE_INDEX_TIMESTAMP);
         db.execSQL(CREATE_INDEX_CELL_ID);
         db.execSQL(CREATE_INDEX_TECHNOLOGY);
+        db.execSQL(CREATE_INDEX_SUBSCRIPTION);
+        db.execSQL(CREATE_INDEX_SITE);
+        db.execSQL(CREATE_TABLE_COVERAGE_TILE);
+        db.execSQL(CREATE_INDEX_TILE_GROUP);
+        db.execSQL(CREATE_TABLE_METADATA);
+        db.execSQL(CREATE_TABLE_ALERTS);
+        db.execSQL(CREATE_INDEX_ALERT_TIMESTAMP);
+        db.execSQL(CREATE_INDEX_ALERT_OBSERVATION);
+        db.execSQL(CREATE_TABLE_SIGNAL_SERIES);
+        db.execSQL(CREATE_INDEX_SERIES_CELL);
+        db.execSQL(CREATE_TABLE_SITE);
+        db.execSQL(CREATE_INDEX_SITE_LAST_SEEN);
         
         Log.d(TAG, "Database tables created successfully");
     }
@@ -105,6 +377,81 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 Log.e(TAG, "Error upgrading database", e);
             }
         }
+        
+        if (oldVersion < 3) {
+            try {
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_SUBSCRIPTION_ID + " INTEGER DEFAULT -1");
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_SIM_SLOT + " INTEGER DEFAULT -1");
+                db.execSQL(CREATE_INDEX_SUBSCRIPTION);
+                Log.d(TAG, "Database upgrade to version 3 completed successfully");
+            } catch (Exception e) {
+                Log.e(TAG, "Error upgrading database to version 3", e);
+            }
+        }
+        
+        if (oldVersion < 4) {
+            try {
+                db.execSQL(CREATE_TABLE_COVERAGE_TILE);
+                db.execSQL(CREATE_INDEX_TILE_GROUP);
+                db.execSQL(CREATE_TABLE_METADATA);
+                // Existing rows are tiled by CoverageTileRebuildTask, not inside the upgrade transaction
+                setMetadata(db, META_COVERAGE_REBUILD_REQUIRED, "1");
+                Log.d(TAG, "Database upgrade to version 4 completed successfully");
+            } catch (Exception e) {
+                Log.e(TAG, "Error upgrading database to version 4", e);
+            }
+        }
+        
+        if (oldVersion < 5) {
+            try {
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_TIMING_ADVANCE + " INTEGER DEFAULT -1");
+                db.execSQL(CREATE_TABLE_ALERTS);
+                db.execSQL(CREATE_INDEX_ALERT_TIMESTAMP);
+                db.execSQL(CREATE_INDEX_ALERT_OBSERVATION);
+                Log.d(TAG, "Database upgrade to version 5 completed successfully");
+            } catch (Exception e) {
+                Log.e(TAG, "Error upgrading database to version 5", e);
+            }
+        }
+        
+        if (oldVersion < 6) {
+            try {
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_IN_REFERENCE + " INTEGER DEFAULT -1");
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_REF_LATITUDE + " REAL DEFAULT 0");
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_REF_LONGITUDE + " REAL DEFAULT 0");
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_REF_RANGE + " INTEGER DEFAULT -1");
+                Log.d(TAG, "Database upgrade to version 6 completed successfully");
+            } catch (Exception e) {
+                Log.e(TAG, "Error upgrading database to version 6", e);
+            }
+        }
+        
+        if (oldVersion < 7) {
+            try {
+                db.execSQL(CREATE_TABLE_SIGNAL_SERIES);
+                db.execSQL(CREATE_INDEX_SERIES_CELL);
+                Log.d(TAG, "Database upgrade to version 7 completed successfully");
+            } catch (Exception e) {
+                Log.e(TAG, "Error upgrading database to version 7", e);
+            }
+        }
+        
+        if (oldVersion < 8) {
+            try {
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_SITE_ID + " INTEGER DEFAULT -1");
+                db.execSQL("ALTER TABLE " + TABLE_CELL_DATA + " ADD COLUMN " + COLUMN_SECTOR + " INTEGER DEFAULT -1");
+                db.execSQL(CREATE_INDEX_SITE);
+                db.execSQL(CREATE_TABLE_SITE);
+                db.execSQL(CREATE_INDEX_SITE_LAST_SEEN);
+                // Existing rows are backfilled and their sites aggregated by CoverageTileRebuildTask,
+                // not inside the upgrade transaction
+                setMetadata(db, META_SITE_BACKFILL_REQUIRED, "1");
+                setMetadata(db, META_SITE_REBUILD_REQUIRED, "1");
+                Log.d(TAG, "Database upgrade to version 8 completed successfully");
+            } catch (Exception e) {
+                Log.e(TAG, "Error upgrading database to version 8", e);
+            }
+        }
     }
 
     public long insertCellData(CellData cellData) {
@@ -112,28 +459,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         long id = -1;
         
         try {
-            ContentValues values = new ContentValues();
-            values.put(COLUMN_TIMESTAMP, cellData.timestamp);
-            values.put(COLUMN_TECHNOLOGY, cellData.technology);
-            values.put(COLUMN_CELL_ID, cellData.cellId);
-            values.put(COLUMN_LAC, cellData.lac);
-            values.put(COLUMN_MCC, cellData.mcc);
-            values.put(COLUMN_MNC, cellData.mnc);
-            values.put(COLUMN_SIGNAL_STRENGTH, cellData.signalStrength);
-            values.put(COLUMN_IS_REGISTERED, cellData.isRegistered ? 1 : 0);
-            values.put(COLUMN_LATITUDE, cellData.latitude);
-            values.put(COLUMN_LONGITUDE, cellData.longitude);
-            values.put(COLUMN_ACCURACY, cellData.accuracy);
-            values.put(COLUMN_PCI, cellData.pci);
-            values.put(COLUMN_PSC, cellData.psc);
-            values.put(COLUMN_BSIC, cellData.bsic);
-            values.put(COLUMN_EARFCN, cellData.earfcn);
-            values.put(COLUMN_UARFCN, cellData.uarfcn);
-            values.put(COLUMN_ARFCN, cellData.arfcn);
-            values.put(COLUMN_NRARFCN, cellData.nrarfcn);
-            values.put(COLUMN_ADDITIONAL_INFO, cellData.additionalInfo);
-            
-            id = db.insert(TABLE_CELL_DATA, null, values);
+            id = db.insert(TABLE_CELL_DATA, null, toContentValues(cellData));
             
             if (id > 0) {
                 cellData.id = id;
@@ -149,6 +475,917 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return id;
     }
 
+    public int insertCellDataBatch(List<CellData> batch) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int inserted = 0;
+        
+        CoverageTile.Accumulator tiles = new CoverageTile.Accumulator();
+        CellSite.Accumulator sites = new CellSite.Accumulator();
+        
+        db.beginTransactionNonExclusive();
+        try {
+            for (CellData cellData : batch) {
+                long id = db.insert(TABLE_CELL_DATA, null, toContentValues(cellData));
+                if (id > 0) {
+                    cellData.id = id;
+                    tiles.add(cellData);
+                    sites.add(cellData);
+                    inserted++;
+                } else {
+                    Log.w(TAG, "Failed to insert cell data: " + cellData.technology + " - " + cellData.cellId);
+                }
+            }
+            applyCoverageTiles(db, tiles);
+            applySites(db, sites);
+            db.setTransactionSuccessful();
+            Log.v(TAG, "Inserted batch of " + inserted + " cell data rows");
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting cell data batch", e);
+            inserted = 0;
+        } finally {
+            db.endTransaction();
+        }
+        
+        return inserted;
+    }
+
+    private void applyCoverageTiles(SQLiteDatabase db, CoverageTile.Accumulator tiles) {
+        if (tiles.isEmpty()) {
+            return;
+        }
+        
+        SQLiteStatement update = db.compileStatement(UPDATE_COVERAGE_TILE);
+        SQLiteStatement insert = db.compileStatement(INSERT_COVERAGE_TILE);
+        try {
+            for (CoverageTile tile : tiles.getTiles()) {
+                update.clearBindings();
+                update.bindLong(2, tile.sampleCount);
+                update.bindLong(3, tile.signalCount);
+                update.bindLong(4, tile.signalSum);
+                if (tile.hasSignal()) {
+                    update.bindLong(1, tile.bestSignal);
+                } else {
+                    update.bindNull(1);
+                }
+                update.bindLong(5, tile.lastSeen);
+                update.bindLong(6, tile.zoom);
+                update.bindString(7, tile.groupType);
+                update.bindLong(8, tile.tileX);
+                update.bindLong(9, tile.tileY);
+                update.bindString(10, tile.groupKey);
+                
+                if (update.executeUpdateDelete() > 0) {
+                    continue;
+                }
+                
+                insert.clearBindings();
+                insert.bindLong(1, tile.zoom);
+                insert.bindString(2, tile.groupType);
+                insert.bindLong(3, tile.tileX);
+                insert.bindLong(4, tile.tileY);
+                insert.bindString(5, tile.groupKey);
+                insert.bindString(6, tile.quadKey);
+                bindNullableString(insert, 7, tile.technology);
+                bindNullableString(insert, 8, tile.mcc);
+                bindNullableString(insert, 9, tile.mnc);
+                insert.bindLong(10, tile.sampleCount);
+                insert.bindLong(11, tile.signalCount);
+                insert.bindLong(12, tile.signalSum);
+                if (tile.hasSignal()) {
+                    insert.bindLong(13, tile.bestSignal);
+                } else {
+                    insert.bindNull(13);
+                }
+                insert.bindLong(14, tile.lastSeen);
+                insert.executeInsert();
+            }
+        } finally {
+            update.close();
+            insert.close();
+        }
+    }
+
+    // Sector, carrier and PCI sets cannot be folded in SQL, so each touched site is read, merged
+    // and written back; a batch touches only a handful of sites
+    private void applySites(SQLiteDatabase db, CellSite.Accumulator sites) {
+        for (CellSite delta : sites.getSites()) {
+            CellSite site = delta;
+            String[] args = {delta.technology, delta.mcc, delta.mnc, String.valueOf(delta.siteId)};
+            try (Cursor cursor = db.query(TABLE_SITE, null, SITE_SELECTION, args, null, null, null)) {
+                if (cursor.moveToFirst()) {
+                    site = cursorToCellSite(cursor);
+                    site.merge(delta);
+                }
+            }
+            db.insertWithOnConflict(TABLE_SITE, null, toContentValues(site), SQLiteDatabase.CONFLICT_REPLACE);
+        }
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    public List<CoverageTile> getCoverageTiles(int zoom, String groupType, double south, double west,
+                                               double north, double east) {
+        List<CoverageTile> tiles = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        
+        int level = CoverageGrid.nearestZoomLevel(zoom);
+        String selection = COLUMN_ZOOM + " = ? AND " + COLUMN_GROUP_TYPE + " = ? AND " +
+            COLUMN_TILE_X + " BETWEEN ? AND ? AND " + COLUMN_TILE_Y + " BETWEEN ? AND ?";
+        String[] args = {
+            String.valueOf(level),
+            groupType,
+            String.valueOf(CoverageGrid.tileX(west, level)),
+            String.valueOf(CoverageGrid.tileX(east, level)),
+            String.valueOf(CoverageGrid.tileY(north, level)),
+            String.valueOf(CoverageGrid.tileY(south, level))
+        };
+        
+        try (Cursor cursor = db.query(TABLE_COVERAGE_TILE, null, selection, args, null, null, null)) {
+            while (cursor.moveToNext()) {
+                tiles.add(cursorToCoverageTile(cursor));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting coverage tiles", e);
+        }
+        
+        return tiles;
+    }
+
+    public List<CoverageTile> getCoverageTilesForGroup(int zoom, String groupKey) {
+        List<CoverageTile> tiles = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        
+        String selection = COLUMN_GROUP_KEY + " = ? AND " + COLUMN_ZOOM + " = ?";
+        String[] args = {groupKey, String.valueOf(CoverageGrid.nearestZoomLevel(zoom))};
+        
+        try (Cursor cursor = db.query(TABLE_COVERAGE_TILE, null, selection, args, null, null, null)) {
+            while (cursor.moveToNext()) {
+                tiles.add(cursorToCoverageTile(cursor));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting coverage tiles for " + groupKey, e);
+        }
+        
+        return tiles;
+    }
+
+    public void scanCellDataByTime(long maxId, CellDataVisitor visitor) {
+        scanCellDataByTime(Long.MIN_VALUE, Long.MAX_VALUE, maxId, false, Projection.FULL, visitor);
+    }
+
+    @Override
+    public void scanObservations(long fromTimestamp, long toTimestamp, boolean registeredOnly,
+                                 CellDataVisitor visitor) {
+        scanObservations(fromTimestamp, toTimestamp, registeredOnly, Projection.FULL, visitor);
+    }
+
+    public void scanObservations(long fromTimestamp, long toTimestamp, boolean registeredOnly,
+                                 Projection projection, CellDataVisitor visitor) {
+        scanCellDataByTime(fromTimestamp, toTimestamp, Long.MAX_VALUE, registeredOnly, projection, visitor);
+    }
+
+    // Streams rows in timestamp order using keyset pages, so memory and per-page cost stay
+    // constant however large the table is
+    public void scanCellDataByTime(long fromTimestamp, long toTimestamp, long maxId, boolean registeredOnly,
+                                   Projection projection, CellDataVisitor visitor) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        long lastTimestamp = fromTimestamp;
+        long lastId = -1;
+        
+        String query = "SELECT " + projection.select + " FROM " + TABLE_CELL_DATA +
+            " WHERE (" + COLUMN_TIMESTAMP + " > ? OR (" + COLUMN_TIMESTAMP + " = ? AND " + COLUMN_ID + " > ?))" +
+            " AND " + COLUMN_TIMESTAMP + " <= ? AND " + COLUMN_ID + " <= ?" +
+            (registeredOnly ? " AND " + COLUMN_IS_REGISTERED + " = 1" : "") +
+            " ORDER BY " + COLUMN_TIMESTAMP + ", " + COLUMN_ID + " LIMIT " + SCAN_PAGE_SIZE;
+        
+        while (true) {
+            String[] args = {
+                String.valueOf(lastTimestamp), String.valueOf(lastTimestamp),
+                String.valueOf(lastId), String.valueOf(toTimestamp), String.valueOf(maxId)
+            };
+            int rows = 0;
+            
+            try (Cursor cursor = db.rawQuery(query, args)) {
+                CellDataReader reader = new CellDataReader(cursor);
+                while (cursor.moveToNext()) {
+                    CellData cellData = reader.read(cursor);
+                    lastTimestamp = cellData.timestamp;
+                    lastId = cellData.id;
+                    rows++;
+                    if (!visitor.visit(cellData)) {
+                        return;
+                    }
+                }
+            }
+            
+            if (rows < SCAN_PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    // Same keyset walk as scanCellDataByTime, decoding five fixed columns straight into the
+    // page's arrays with no CellData per row
+    @Override
+    public void scanObservationColumns(long fromTimestamp, long toTimestamp, ObservationColumns page,
+                                       ObservationColumns.Visitor visitor) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        long lastTimestamp = fromTimestamp;
+        long lastId = -1;
+        
+        String query = "SELECT " + COLUMN_ID + ", " + COLUMN_TIMESTAMP + ", " + COLUMN_SIGNAL_STRENGTH + ", " +
+            COLUMN_LATITUDE + ", " + COLUMN_LONGITUDE + " FROM " + TABLE_CELL_DATA +
+            " WHERE (" + COLUMN_TIMESTAMP + " > ? OR (" + COLUMN_TIMESTAMP + " = ? AND " + COLUMN_ID + " > ?))" +
+            " AND " + COLUMN_TIMESTAMP + " <= ?" +
+            " ORDER BY " + COLUMN_TIMESTAMP + ", " + COLUMN_ID + " LIMIT " + page.capacity();
+        
+        while (true) {
+            String[] args = {
+                String.valueOf(lastTimestamp), String.valueOf(lastTimestamp),
+                String.valueOf(lastId), String.valueOf(toTimestamp)
+            };
+            page.clear();
+            
+            try (Cursor cursor = db.rawQuery(query, args)) {
+                while (cursor.moveToNext()) {
+                    page.add(cursor.getLong(0), cursor.getLong(1), cursor.getInt(2),
+                        cursor.getDouble(3), cursor.getDouble(4));
+                }
+            }
+            
+            if (page.size == 0) {
+                return;
+            }
+            lastTimestamp = page.timestamps[page.size - 1];
+            lastId = page.ids[page.size - 1];
+            boolean full = page.isFull();
+            boolean more = visitor.visit(page);
+            page.clear();
+            if (!more || !full) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void scanObservationsAfterId(long afterId, int limit, CellDataVisitor visitor) {
+        scanObservationsAfterId(afterId, limit, Projection.FULL, visitor);
+    }
+
+    public void scanObservationsAfterId(long afterId, int limit, Projection projection, CellDataVisitor visitor) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String selection = COLUMN_ID + " > ?";
+        String[] args = {String.valueOf(afterId)};
+        
+        try (Cursor cursor = db.query(TABLE_CELL_DATA, projection.columns, selection, args, null, null, COLUMN_ID,
+                String.valueOf(limit))) {
+            CellDataReader reader = new CellDataReader(cursor);
+            while (cursor.moveToNext()) {
+                if (!visitor.visit(reader.read(cursor))) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // An empty scan means caught up to sync, so a failed one must not look like it
+            throw new IllegalStateException("Error scanning observations after " + afterId, e);
+        }
+    }
+
+    // Last _id the collection server has acknowledged; stored with the data so a restored or
+    // cleared database never claims rows it does not hold
+    public long getSyncHighWaterMark() {
+        String value = getMetadata(this.getReadableDatabase(), META_SYNC_HIGH_WATER_MARK);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    public void setSyncHighWaterMark(long highWaterMark) {
+        setMetadata(this.getWritableDatabase(), META_SYNC_HIGH_WATER_MARK, String.valueOf(highWaterMark));
+    }
+
+    public long getMaxCellDataId() {
+        return queryLong(this.getReadableDatabase(),
+            "SELECT IFNULL(MAX(" + COLUMN_ID + "), 0) FROM " + TABLE_CELL_DATA);
+    }
+
+    public int insertAlerts(List<AnomalyAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return 0;
+        }
+        
+        SQLiteDatabase db = this.getWritableDatabase();
+        int inserted = 0;
+        
+        db.beginTransactionNonExclusive();
+        try {
+            for (AnomalyAlert alert : alerts) {
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_TIMESTAMP, alert.timestamp);
+                values.put(COLUMN_RULE, alert.rule);
+                values.put(COLUMN_SCORE, alert.score);
+                values.put(COLUMN_SEVERITY, alert.getSeverity());
+                values.put(COLUMN_OBSERVATION_ID, alert.observationId);
+                values.put(COLUMN_TECHNOLOGY, alert.technology);
+                values.put(COLUMN_MCC, alert.mcc);
+                values.put(COLUMN_MNC, alert.mnc);
+                values.put(COLUMN_LAC, alert.lac);
+                values.put(COLUMN_CELL_ID, alert.cellId);
+                values.put(COLUMN_SUBSCRIPTION_ID, alert.subscriptionId);
+                values.put(COLUMN_MESSAGE, alert.message);
+                
+                long id = db.insert(TABLE_ALERTS, null, values);
+                if (id > 0) {
+                    alert.id = id;
+                    inserted++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting alerts", e);
+            inserted = 0;
+        } finally {
+            db.endTransaction();
+        }
+        
+        return inserted;
+    }
+
+    public List<AnomalyAlert> getRecentAlerts(int limit) {
+        List<AnomalyAlert> alerts = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        
+        String query = "SELECT * FROM " + TABLE_ALERTS + 
+                      " ORDER BY " + COLUMN_TIMESTAMP + " DESC LIMIT " + limit;
+        
+        try (Cursor cursor = db.rawQuery(query, null)) {
+            while (cursor.moveToNext()) {
+                AnomalyAlert alert = new AnomalyAlert();
+                alert.id = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID));
+                alert.timestamp = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_TIMESTAMP));
+                alert.rule = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_RULE));
+                alert.score = cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_SCORE));
+                alert.observationId = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_OBSERVATION_ID));
+                alert.technology = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TECHNOLOGY));
+                alert.mcc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MCC));
+                alert.mnc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MNC));
+                alert.lac = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAC));
+                alert.cellId = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CELL_ID));
+                alert.subscriptionId = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_SUBSCRIPTION_ID));
+                alert.message = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE));
+                alerts.add(alert);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting recent alerts", e);
+        }
+        
+        return alerts;
+    }
+
+    public int getAlertCount() {
+        return (int) queryLong(this.getReadableDatabase(), "SELECT COUNT(*) FROM " + TABLE_ALERTS);
+    }
+
+    public int deleteAlertsUpTo(long maxObservationId) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        
+        try {
+            return db.delete(TABLE_ALERTS, COLUMN_OBSERVATION_ID + " <= ?",
+                new String[]{String.valueOf(maxObservationId)});
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting alerts", e);
+            return 0;
+        }
+    }
+
+    // The mark is the first cell_data _id whose sample may not be in a sealed block yet; it is
+    // committed with the blocks so a restart replays exactly what was still open
+    public void insertSignalSeriesBlocks(List<SignalSeriesBlock> blocks, long mark) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            for (SignalSeriesBlock block : blocks) {
+                block.id = db.insert(TABLE_SIGNAL_SERIES, null, toContentValues(block));
+            }
+            setMetadata(db, META_SIGNAL_SERIES_MARK, String.valueOf(mark));
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting signal series blocks", e);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public long getSignalSeriesMark() {
+        String value = getMetadata(this.getReadableDatabase(), META_SIGNAL_SERIES_MARK);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    // Latest sample already sealed for the cell, or Long.MIN_VALUE when it has no blocks
+    public long getSignalSeriesEndTimestamp(String cellKey) {
+        try (Cursor cursor = this.getReadableDatabase().rawQuery("SELECT MAX(" + COLUMN_END_TIMESTAMP + ") FROM " +
+                TABLE_SIGNAL_SERIES + " WHERE " + COLUMN_CELL_KEY + " = ?", new String[]{cellKey})) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : Long.MIN_VALUE;
+        }
+    }
+
+    // Drops or trims sealed blocks covered by the request; blocks straddling the time range
+    // are re-encoded without the purged samples. Blocks are paged by _id so each chunk holds
+    // a bounded number of decoded blocks and commits on its own, like purgeChunk.
+    public void purgeSignalSeries(PurgeRequest request) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        
+        if (request.isAll()) {
+            db.delete(TABLE_SIGNAL_SERIES, null, null);
+            return;
+        }
+        
+        List<String> args = new ArrayList<>();
+        StringBuilder selection = new StringBuilder(COLUMN_ID + " > ? AND " +
+            COLUMN_END_TIMESTAMP + " >= ? AND " + COLUMN_START_TIMESTAMP + " <= ?");
+        args.add("0");
+        args.add(String.valueOf(request.fromTimestamp));
+        args.add(String.valueOf(request.toTimestamp));
+        // Reuse the cell_data criteria for technology and operator; the time range is applied per sample
+        PurgeRequest filters = PurgeRequest.all();
+        filters.technologies.addAll(request.technologies);
+        filters.operators.addAll(request.operators);
+        selection.append(" AND ").append(buildPurgeSelection(filters, args));
+        String[] selectionArgs = args.toArray(new String[0]);
+        
+        List<SignalSeriesBlock> blocks = new ArrayList<>();
+        long lastId = 0;
+        while (true) {
+            selectionArgs[0] = String.valueOf(lastId);
+            blocks.clear();
+            try (Cursor cursor = db.query(TABLE_SIGNAL_SERIES, null, selection.toString(), selectionArgs,
+                    null, null, COLUMN_ID, String.valueOf(SERIES_PURGE_CHUNK_SIZE))) {
+                while (cursor.moveToNext()) {
+                    blocks.add(cursorToSignalSeriesBlock(cursor));
+                }
+            }
+            if (blocks.isEmpty()) {
+                return;
+            }
+            
+            db.beginTransactionNonExclusive();
+            try {
+                for (SignalSeriesBlock block : blocks) {
+                    String[] idArgs = {String.valueOf(block.id)};
+                    SignalSeriesBlock remaining = block.without(request.fromTimestamp, request.toTimestamp);
+                    if (remaining == null) {
+                        db.delete(TABLE_SIGNAL_SERIES, COLUMN_ID + " = ?", idArgs);
+                    } else {
+                        db.update(TABLE_SIGNAL_SERIES, toContentValues(remaining), COLUMN_ID + " = ?", idArgs);
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            
+            lastId = blocks.get(blocks.size() - 1).id;
+            if (blocks.size() < SERIES_PURGE_CHUNK_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private ContentValues toContentValues(SignalSeriesBlock block) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_CELL_KEY, block.cellKey);
+        values.put(COLUMN_TECHNOLOGY, block.technology);
+        values.put(COLUMN_MCC, block.mcc);
+        values.put(COLUMN_MNC, block.mnc);
+        values.put(COLUMN_START_TIMESTAMP, block.startTimestamp);
+        values.put(COLUMN_END_TIMESTAMP, block.endTimestamp);
+        values.put(COLUMN_SAMPLE_COUNT, block.sampleCount);
+        values.put(COLUMN_DATA, block.data);
+        return values;
+    }
+
+    private SignalSeriesBlock cursorToSignalSeriesBlock(Cursor cursor) {
+        SignalSeriesBlock block = new SignalSeriesBlock();
+        
+        block.id = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID));
+        block.cellKey = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CELL_KEY));
+        block.technology = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TECHNOLOGY));
+        block.mcc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MCC));
+        block.mnc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MNC));
+        block.startTimestamp = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_START_TIMESTAMP));
+        block.endTimestamp = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_END_TIMESTAMP));
+        block.sampleCount = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_SAMPLE_COUNT));
+        block.data = cursor.getBlob(cursor.getColumnIndexOrThrow(COLUMN_DATA));
+        
+        return block;
+    }
+
+    public boolean isCoverageRebuildRequired() {
+        return "1".equals(getMetadata(this.getReadableDatabase(), META_COVERAGE_REBUILD_REQUIRED));
+    }
+
+    // Tiles rows with _id <= the high-water mark taken when the tile table is cleared;
+    // anything inserted afterwards is tiled by insertCellDataBatch as usual.
+    public void rebuildCoverageTiles() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        long maxId;
+        
+        db.beginTransactionNonExclusive();
+        try {
+            db.delete(TABLE_COVERAGE_TILE, null, null);
+            // Committed with the delete, so a forced rebuild that is interrupted is still resumed
+            setMetadata(db, META_COVERAGE_REBUILD_REQUIRED, "1");
+            maxId = queryLong(db, "SELECT IFNULL(MAX(" + COLUMN_ID + "), 0) FROM " + TABLE_CELL_DATA);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        
+        Log.d(TAG, "Rebuilding coverage tiles up to row " + maxId);
+        
+        long lastId = 0;
+        CoverageTile.Accumulator tiles = new CoverageTile.Accumulator();
+        while (lastId < maxId) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Leave the rebuild flag set so the next service start starts over
+                Log.w(TAG, "Coverage tile rebuild interrupted at row " + lastId);
+                return;
+            }
+            
+            String query = "SELECT " + Projection.COVERAGE.select + " FROM " + TABLE_CELL_DATA +
+                " WHERE " + COLUMN_ID + " > ? AND " + COLUMN_ID + " <= ?" +
+                " ORDER BY " + COLUMN_ID + " LIMIT " + REBUILD_CHUNK_SIZE;
+            int rows = 0;
+            
+            try (Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(lastId), String.valueOf(maxId)})) {
+                CellDataReader reader = new CellDataReader(cursor);
+                while (cursor.moveToNext()) {
+                    CellData cellData = reader.read(cursor);
+                    tiles.add(cellData);
+                    lastId = cellData.id;
+                    rows++;
+                }
+            }
+            
+            if (rows == 0) {
+                break;
+            }
+            
+            db.beginTransactionNonExclusive();
+            try {
+                applyCoverageTiles(db, tiles);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            tiles.clear();
+        }
+        
+        setMetadata(db, META_COVERAGE_REBUILD_REQUIRED, "0");
+        Log.d(TAG, "Coverage tile rebuild completed");
+    }
+
+    public boolean isSiteBackfillRequired() {
+        return "1".equals(getMetadata(this.getReadableDatabase(), META_SITE_BACKFILL_REQUIRED));
+    }
+
+    // Fills site_id and sector on rows written before version 8, one _id range per transaction.
+    // Rows inserted since the upgrade already carry them, and the update is idempotent, so an
+    // interrupted backfill simply starts over.
+    public void backfillSiteColumns() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        long maxId = queryLong(db, "SELECT IFNULL(MAX(" + COLUMN_ID + "), 0) FROM " + TABLE_CELL_DATA);
+        Log.d(TAG, "Backfilling site columns up to row " + maxId);
+        
+        for (long lastId = 0; lastId < maxId; lastId += REBUILD_CHUNK_SIZE) {
+            if (Thread.currentThread().isInterrupted()) {
+                Log.w(TAG, "Site column backfill interrupted at row " + lastId);
+                return;
+            }
+            
+            db.beginTransactionNonExclusive();
+            try {
+                db.execSQL(BACKFILL_SITE_COLUMNS, new Object[]{lastId, Math.min(lastId + REBUILD_CHUNK_SIZE, maxId)});
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        
+        setMetadata(db, META_SITE_BACKFILL_REQUIRED, "0");
+        Log.d(TAG, "Site column backfill completed");
+    }
+
+    public boolean isSiteRebuildRequired() {
+        return "1".equals(getMetadata(this.getReadableDatabase(), META_SITE_REBUILD_REQUIRED));
+    }
+
+    // Same high-water-mark scheme as rebuildCoverageTiles
+    public void rebuildSites() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        long maxId;
+        
+        db.beginTransactionNonExclusive();
+        try {
+            db.delete(TABLE_SITE, null, null);
+            // Committed with the delete, so a forced rebuild that is interrupted is still resumed
+            setMetadata(db, META_SITE_REBUILD_REQUIRED, "1");
+            maxId = queryLong(db, "SELECT IFNULL(MAX(" + COLUMN_ID + "), 0) FROM " + TABLE_CELL_DATA);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        
+        Log.d(TAG, "Rebuilding sites up to row " + maxId);
+        
+        long lastId = 0;
+        CellSite.Accumulator sites = new CellSite.Accumulator();
+        String query = "SELECT " + Projection.SITE.select + " FROM " + TABLE_CELL_DATA +
+            " WHERE " + COLUMN_ID + " > ? AND " + COLUMN_ID + " <= ? AND " + COLUMN_SITE_ID + " >= 0" +
+            " ORDER BY " + COLUMN_ID + " LIMIT " + REBUILD_CHUNK_SIZE;
+        while (lastId < maxId) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Leave the rebuild flag set so the next service start starts over
+                Log.w(TAG, "Site rebuild interrupted at row " + lastId);
+                return;
+            }
+            
+            int rows = 0;
+            try (Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(lastId), String.valueOf(maxId)})) {
+                CellDataReader reader = new CellDataReader(cursor);
+                while (cursor.moveToNext()) {
+                    CellData cellData = reader.read(cursor);
+                    sites.add(cellData);
+                    lastId = cellData.id;
+                    rows++;
+                }
+            }
+            
+            if (rows == 0) {
+                break;
+            }
+            
+            db.beginTransactionNonExclusive();
+            try {
+                applySites(db, sites);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            sites.clear();
+        }
+        
+        setMetadata(db, META_SITE_REBUILD_REQUIRED, "0");
+        Log.d(TAG, "Site rebuild completed");
+    }
+
+    // Re-aggregates only the given sites from their remaining observations through idx_site, one
+    // site per transaction. Used after a purge, whose chunks flagged a full rebuild in case the
+    // purge did not get this far; the flag is cleared once every site is recomputed.
+    public void recomputeSites(Collection<CellSite> sites) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        String query = "SELECT " + Projection.SITE.select + " FROM " + TABLE_CELL_DATA +
+            " WHERE " + COLUMN_SITE_ID + " = ? AND " + COLUMN_TECHNOLOGY + " = ? AND " +
+            COLUMN_MCC + " = ? AND " + COLUMN_MNC + " = ?";
+        CellSite.Accumulator recomputed = new CellSite.Accumulator();
+        
+        for (CellSite site : sites) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Leave the rebuild flag set so the next service start rebuilds every site
+                Log.w(TAG, "Site recompute interrupted");
+                return;
+            }
+            
+            String[] args = {site.technology, site.mcc, site.mnc, String.valueOf(site.siteId)};
+            db.beginTransactionNonExclusive();
+            try {
+                db.delete(TABLE_SITE, SITE_SELECTION, args);
+                try (Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(site.siteId), site.technology,
+                        site.mcc, site.mnc})) {
+                    CellDataReader reader = new CellDataReader(cursor);
+                    while (cursor.moveToNext()) {
+                        recomputed.add(reader.read(cursor));
+                    }
+                }
+                applySites(db, recomputed);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            recomputed.clear();
+        }
+        
+        setMetadata(db, META_SITE_REBUILD_REQUIRED, "0");
+        Log.d(TAG, "Recomputed " + sites.size() + " sites");
+    }
+
+    public CellSite getSite(String technology, String mcc, String mnc, long siteId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String[] args = {technology, mcc, mnc, String.valueOf(siteId)};
+        
+        try (Cursor cursor = db.query(TABLE_SITE, null, SITE_SELECTION, args, null, null, null)) {
+            if (cursor.moveToFirst()) {
+                return cursorToCellSite(cursor);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting site " + CellSite.key(technology, mcc, mnc, siteId), e);
+        }
+        
+        return null;
+    }
+
+    // Site of an observed LTE/NR cell, or null for other technologies and unseen sites
+    public CellSite getSiteFor(CellData cellData) {
+        long siteId = cellData.getSiteId();
+        if (siteId < 0 || cellData.mcc == null || cellData.mnc == null) {
+            return null;
+        }
+        return getSite(cellData.technology, cellData.mcc, cellData.mnc, siteId);
+    }
+
+    public List<CellSite> getRecentSites(int limit) {
+        List<CellSite> sites = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        
+        try (Cursor cursor = db.query(TABLE_SITE, null, null, null, null, null,
+                COLUMN_LAST_SEEN + " DESC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                sites.add(cursorToCellSite(cursor));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting recent sites", e);
+        }
+        
+        return sites;
+    }
+
+    // Every sector observed on a site, grouped from the observations through idx_site
+    public List<CellSite.Sector> getSiteSectors(String technology, String mcc, String mnc, long siteId) {
+        List<CellSite.Sector> sectors = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        
+        String carrier = "NR".equals(technology) ? COLUMN_NRARFCN : COLUMN_EARFCN;
+        String query = "SELECT " + COLUMN_SECTOR + ", MIN(" + COLUMN_CELL_ID + "), COUNT(*), " +
+            "MAX(CASE WHEN " + COLUMN_SIGNAL_STRENGTH + " < 0 AND " + COLUMN_SIGNAL_STRENGTH + " > -200 THEN " +
+            COLUMN_SIGNAL_STRENGTH + " END), MIN(" + COLUMN_TIMESTAMP + "), MAX(" + COLUMN_TIMESTAMP + "), " +
+            "GROUP_CONCAT(DISTINCT CASE WHEN " + carrier + " >= 0 THEN " + carrier + " END), " +
+            "GROUP_CONCAT(DISTINCT CASE WHEN " + COLUMN_PCI + " >= 0 THEN " + COLUMN_PCI + " END)" +
+            " FROM " + TABLE_CELL_DATA + " WHERE " + COLUMN_SITE_ID + " = ? AND " + COLUMN_TECHNOLOGY + " = ? AND " +
+            COLUMN_MCC + " = ? AND " + COLUMN_MNC + " = ?" +
+            " GROUP BY " + COLUMN_SECTOR + " ORDER BY " + COLUMN_SECTOR;
+        String[] args = {String.valueOf(siteId), technology, mcc, mnc};
+        
+        try (Cursor cursor = db.rawQuery(query, args)) {
+            while (cursor.moveToNext()) {
+                CellSite.Sector sector = new CellSite.Sector();
+                sector.sector = cursor.getInt(0);
+                sector.cellId = cursor.getString(1);
+                sector.sampleCount = cursor.getLong(2);
+                if (!cursor.isNull(3)) {
+                    sector.bestSignal = cursor.getInt(3);
+                }
+                sector.firstSeen = cursor.getLong(4);
+                sector.lastSeen = cursor.getLong(5);
+                CellSite.parseList(cursor.getString(6), sector.carriers);
+                CellSite.parseList(cursor.getString(7), sector.pcis);
+                sectors.add(sector);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting sectors of " + CellSite.key(technology, mcc, mnc, siteId), e);
+        }
+        
+        return sectors;
+    }
+
+    private ContentValues toContentValues(CellSite site) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_TECHNOLOGY, site.technology);
+        values.put(COLUMN_MCC, site.mcc);
+        values.put(COLUMN_MNC, site.mnc);
+        values.put(COLUMN_SITE_ID, site.siteId);
+        values.put(COLUMN_SECTORS, CellSite.joinList(site.sectors));
+        values.put(COLUMN_CARRIERS, CellSite.joinList(site.carriers));
+        values.put(COLUMN_PCIS, CellSite.joinList(site.pcis));
+        values.put(COLUMN_SAMPLE_COUNT, site.sampleCount);
+        values.put(COLUMN_FIX_COUNT, site.fixCount);
+        values.put(COLUMN_WEIGHT_SUM, site.weightSum);
+        values.put(COLUMN_LATITUDE_SUM, site.latitudeSum);
+        values.put(COLUMN_LONGITUDE_SUM, site.longitudeSum);
+        if (site.hasSignal()) {
+            values.put(COLUMN_BEST_SIGNAL, site.bestSignal);
+        } else {
+            values.putNull(COLUMN_BEST_SIGNAL);
+        }
+        values.put(COLUMN_FIRST_SEEN, site.firstSeen);
+        values.put(COLUMN_LAST_SEEN, site.lastSeen);
+        return values;
+    }
+
+    private CellSite cursorToCellSite(Cursor cursor) {
+        CellSite site = new CellSite();
+        
+        site.technology = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TECHNOLOGY));
+        site.mcc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MCC));
+        site.mnc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MNC));
+        site.siteId = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SITE_ID));
+        CellSite.parseList(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SECTORS)), site.sectors);
+        CellSite.parseList(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CARRIERS)), site.carriers);
+        CellSite.parseList(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PCIS)), site.pcis);
+        site.sampleCount = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SAMPLE_COUNT));
+        site.fixCount = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_FIX_COUNT));
+        site.weightSum = cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_WEIGHT_SUM));
+        site.latitudeSum = cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_LATITUDE_SUM));
+        site.longitudeSum = cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_LONGITUDE_SUM));
+        int bestIndex = cursor.getColumnIndexOrThrow(COLUMN_BEST_SIGNAL);
+        site.bestSignal = cursor.isNull(bestIndex) ? Integer.MIN_VALUE : cursor.getInt(bestIndex);
+        site.firstSeen = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_FIRST_SEEN));
+        site.lastSeen = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_LAST_SEEN));
+        
+        return site;
+    }
+
+    private CoverageTile cursorToCoverageTile(Cursor cursor) {
+        CoverageTile tile = new CoverageTile();
+        
+        tile.zoom = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ZOOM));
+        tile.tileX = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_TILE_X));
+        tile.tileY = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_TILE_Y));
+        tile.quadKey = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_QUADKEY));
+        tile.groupType = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_GROUP_TYPE));
+        tile.groupKey = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_GROUP_KEY));
+        tile.technology = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TECHNOLOGY));
+        tile.mcc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MCC));
+        tile.mnc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MNC));
+        tile.sampleCount = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SAMPLE_COUNT));
+        tile.signalCount = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SIGNAL_COUNT));
+        tile.signalSum = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SIGNAL_SUM));
+        int bestIndex = cursor.getColumnIndexOrThrow(COLUMN_BEST_SIGNAL);
+        tile.bestSignal = cursor.isNull(bestIndex) ? Integer.MIN_VALUE : cursor.getInt(bestIndex);
+        tile.lastSeen = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_LAST_SEEN));
+        
+        return tile;
+    }
+
+    private static long queryLong(SQLiteDatabase db, String query) {
+        try (Cursor cursor = db.rawQuery(query, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    private static String getMetadata(SQLiteDatabase db, String key) {
+        try (Cursor cursor = db.query(TABLE_METADATA, new String[]{COLUMN_VALUE}, COLUMN_KEY + " = ?",
+                new String[]{key}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading metadata " + key, e);
+            return null;
+        }
+    }
+
+    private static void setMetadata(SQLiteDatabase db, String key, String value) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_KEY, key);
+        values.put(COLUMN_VALUE, value);
+        db.insertWithOnConflict(TABLE_METADATA, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private ContentValues toContentValues(CellData cellData) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_TIMESTAMP, cellData.timestamp);
+        values.put(COLUMN_TECHNOLOGY, cellData.technology);
+        values.put(COLUMN_CELL_ID, cellData.cellId);
+        values.put(COLUMN_LAC, cellData.lac);
+        values.put(COLUMN_MCC, cellData.mcc);
+        values.put(COLUMN_MNC, cellData.mnc);
+        values.put(COLUMN_SIGNAL_STRENGTH, cellData.signalStrength);
+        values.put(COLUMN_IS_REGISTERED, cellData.isRegistered ? 1 : 0);
+        values.put(COLUMN_LATITUDE, cellData.latitude);
+        values.put(COLUMN_LONGITUDE, cellData.longitude);
+        values.put(COLUMN_ACCURACY, cellData.accuracy);
+        values.put(COLUMN_PCI, cellData.pci);
+        values.put(COLUMN_PSC, cellData.psc);
+        values.put(COLUMN_BSIC, cellData.bsic);
+        values.put(COLUMN_EARFCN, cellData.earfcn);
+        values.put(COLUMN_UARFCN, cellData.uarfcn);
+        values.put(COLUMN_ARFCN, cellData.arfcn);
+        values.put(COLUMN_NRARFCN, cellData.nrarfcn);
+        values.put(COLUMN_TIMING_ADVANCE, cellData.timingAdvance);
+        values.put(COLUMN_SUBSCRIPTION_ID, cellData.subscriptionId);
+        values.put(COLUMN_SIM_SLOT, cellData.simSlot);
+        values.put(COLUMN_IN_REFERENCE, cellData.referenceStatus);
+        values.put(COLUMN_REF_LATITUDE, cellData.referenceLatitude);
+        values.put(COLUMN_REF_LONGITUDE, cellData.referenceLongitude);
+        values.put(COLUMN_REF_RANGE, cellData.referenceRange);
+        values.put(COLUMN_ADDITIONAL_INFO, cellData.additionalInfo);
+        values.put(COLUMN_SITE_ID, cellData.getSiteId());
+        values.put(COLUMN_SECTOR, cellData.getSector());
+        return values;
+    }
+
     public List<CellData> getAllCellData() {
         List<CellData> cellDataList = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
@@ -156,9 +1393,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         String query = "SELECT * FROM " + TABLE_CELL_DATA + " ORDER BY " + COLUMN_TIMESTAMP + " DESC";
         
         try (Cursor cursor = db.rawQuery(query, null)) {
+            CellDataReader reader = new CellDataReader(cursor);
             if (cursor.moveToFirst()) {
                 do {
-                    CellData cellData = cursorToCellData(cursor);
+                    CellData cellData = reader.read(cursor);
                     cellDataList.add(cellData);
                 } while (cursor.moveToNext());
             }
@@ -177,9 +1415,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                       " ORDER BY " + COLUMN_TIMESTAMP + " DESC LIMIT " + limit;
         
         try (Cursor cursor = db.rawQuery(query, null)) {
+            CellDataReader reader = new CellDataReader(cursor);
             if (cursor.moveToFirst()) {
                 do {
-                    CellData cellData = cursorToCellData(cursor);
+                    CellData cellData = reader.read(cursor);
                     cellDataList.add(cellData);
                 } while (cursor.moveToNext());
             }
@@ -190,6 +1429,35 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return cellDataList;
     }
 
+    // Keyset pages by _id, newest first: rows newer than afterId for refreshes and rows older
+    // than beforeId for scrolling back through history. Rows carry the SUMMARY projection.
+    public List<CellData> getCellDataNewerThan(long afterId, int limit) {
+        return queryCellDataPage(COLUMN_ID + " > ?", afterId, limit);
+    }
+
+    public List<CellData> getCellDataOlderThan(long beforeId, int limit) {
+        return queryCellDataPage(COLUMN_ID + " < ?", beforeId, limit);
+    }
+
+    private List<CellData> queryCellDataPage(String selection, long boundary, int limit) {
+        List<CellData> cellDataList = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        String[] args = {String.valueOf(boundary)};
+        
+        try (Cursor cursor = db.query(TABLE_CELL_DATA, Projection.SUMMARY.columns, selection, args, null, null,
+                COLUMN_ID + " DESC", String.valueOf(limit))) {
+            CellDataReader reader = new CellDataReader(cursor);
+            while (cursor.moveToNext()) {
+                cellDataList.add(reader.read(cursor));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading cell data page", e);
+        }
+        
+        return cellDataList;
+    }
+
+    @Override
     public int getTotalCellCount() {
         SQLiteDatabase db = this.getReadableDatabase();
         String query = "SELECT COUNT(*) FROM " + TABLE_CELL_DATA;
@@ -205,41 +1473,273 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return 0;
     }
 
-    public void clearAllData() {
+    @Override
+    public long getFirstTimestamp() {
+        return queryLong(this.getReadableDatabase(),
+            "SELECT IFNULL(MIN(" + COLUMN_TIMESTAMP + "), -1) FROM " + TABLE_CELL_DATA);
+    }
+
+    @Override
+    public long getLastTimestamp() {
+        return queryLong(this.getReadableDatabase(),
+            "SELECT IFNULL(MAX(" + COLUMN_TIMESTAMP + "), -1) FROM " + TABLE_CELL_DATA);
+    }
+
+    private static String buildPurgeSelection(PurgeRequest request, List<String> args) {
+        StringBuilder selection = new StringBuilder("1");
+        
+        if (request.fromTimestamp != Long.MIN_VALUE || request.toTimestamp != Long.MAX_VALUE) {
+            selection.append(" AND ").append(COLUMN_TIMESTAMP).append(" BETWEEN ? AND ?");
+            args.add(String.valueOf(request.fromTimestamp));
+            args.add(String.valueOf(request.toTimestamp));
+        }
+        
+        if (!request.technologies.isEmpty()) {
+            selection.append(" AND ").append(COLUMN_TECHNOLOGY).append(" IN (");
+            for (int i = 0; i < request.technologies.size(); i++) {
+                selection.append(i == 0 ? "?" : ", ?");
+                args.add(request.technologies.get(i));
+            }
+            selection.append(")");
+        }
+        
+        if (!request.operators.isEmpty()) {
+            selection.append(" AND (");
+            for (int i = 0; i < request.operators.size(); i++) {
+                String[] parts = request.operators.get(i).split("-", 2);
+                selection.append(i == 0 ? "" : " OR ")
+                    .append("(").append(COLUMN_MCC).append(" = ? AND ").append(COLUMN_MNC).append(" = ?)");
+                args.add(parts[0]);
+                args.add(parts.length > 1 ? parts[1] : "");
+            }
+            selection.append(")");
+        }
+        
+        return selection.toString();
+    }
+
+    public int countPurgeCandidates(PurgeRequest request) {
+        List<String> args = new ArrayList<>();
+        String selection = buildPurgeSelection(request, args);
+        
+        try (Cursor cursor = this.getReadableDatabase().rawQuery(
+                "SELECT COUNT(*) FROM " + TABLE_CELL_DATA + " WHERE " + selection, args.toArray(new String[0]))) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error counting purge candidates", e);
+            return 0;
+        }
+    }
+
+    // Deletes up to chunkSize matching observations, with their alerts and coverage tile
+    // contributions, in one short transaction. Sites the removed rows belonged to are added to
+    // touchedSites for recomputeSites. Returns the number of observations removed.
+    public int purgeChunk(PurgeRequest request, int chunkSize, CellSite.Accumulator touchedSites) {
         SQLiteDatabase db = this.getWritableDatabase();
+        List<String> args = new ArrayList<>();
+        String selection = buildPurgeSelection(request, args);
         
+        db.beginTransactionNonExclusive();
         try {
-            db.delete(TABLE_CELL_DATA, null, null);
-            Log.d(TAG, "All cell data cleared");
-        } catch (Exception e) {
-            Log.e(TAG, "Error clearing all data", e);
-        }
-    }
-
-    private CellData cursorToCellData(Cursor cursor) {
-        CellData cellData = new CellData();
-        
-        cellData.id = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID));
-        cellData.timestamp = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_TIMESTAMP));
-        cellData.technology = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TECHNOLOGY));
-        cellData.cellId = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_CELL_ID));
-        cellData.lac = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAC));
-        cellData.mcc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MCC));
-        cellData.mnc = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MNC));
-        cellData.signalStrength = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_SIGNAL_STRENGTH));
-        cellData.isRegistered = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_IS_REGISTERED)) == 1;
-        cellData.latitude = cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_LATITUDE));
-        cellData.longitude = cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_LONGITUDE));
-        cellData.accuracy = cursor.getFloat(cursor.getColumnIndexOrThrow(COLUMN_ACCURACY));
-        cellData.pci = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_PCI));
-        cellData.psc = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_PSC));
-        cellData.bsic = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_BSIC));
-        cellData.earfcn = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_EARFCN));
-        cellData.uarfcn = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_UARFCN));
-        cellData.arfcn = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ARFCN));
-        cellData.nrarfcn = cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_NRARFCN));
-        cellData.additionalInfo = cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ADDITIONAL_INFO));
-        
-        return cellData;
+            CoverageTile.Accumulator removedTiles = new CoverageTile.Accumulator();
+            long chunkMaxId = -1;
+            boolean removedSites = false;
+            
+            String query = "SELECT " + Projection.COVERAGE.select + " FROM " + TABLE_CELL_DATA +
+                " WHERE " + selection + " ORDER BY " + COLUMN_ID + " LIMIT " + chunkSize;
+            try (Cursor cursor = db.rawQuery(query, args.toArray(new String[0]))) {
+                CellDataReader reader = new CellDataReader(cursor);
+                while (cursor.moveToNext()) {
+                    CellData cellData = reader.read(cursor);
+                    removedTiles.add(cellData);
+                    touchedSites.add(cellData);
+                    removedSites |= cellData.getSiteId() >= 0 && cellData.mcc != null && cellData.mnc != null;
+                    chunkMaxId = cellData.id;
+                }
+            }
+            
+            if (chunkMaxId < 0) {
+                db.setTransactionSuccessful();
+                return 0;
+            }
+            
+            // Same rows as the SELECT above: the first chunkSize matches in _id order
+            String chunkSelection = selection + " AND " + COLUMN_ID + " <= ?";
+            args.add(String.valueOf(chunkMaxId));
+            String[] chunkArgs = args.toArray(new String[0]);
+            
+            db.delete(TABLE_ALERTS, COLUMN_OBSERVATION_ID + " IN (SELECT " + COLUMN_ID + " FROM " +
+                TABLE_CELL_DATA + " WHERE " + chunkSelection + ")", chunkArgs);
+            int deleted = db.delete(TABLE_CELL_DATA, chunkSelection, chunkArgs);
+            removeCoverageTiles(db, removedTiles);
+            // Site sector, carrier and PCI sets cannot be decremented; the touched sites are
+            // recomputed once the purge finishes. The flag covers a purge that stops before that.
+            if (removedSites) {
+                setMetadata(db, META_SITE_REBUILD_REQUIRED, "1");
+            }
+            
+            if (!request.isAll()) {
+                // Counts and means are exact after each chunk; best signal and last seen of the
+                // surviving rows can only be recomputed by a rebuild
+                setMetadata(db, META_COVERAGE_REBUILD_REQUIRED, "1");
+            }
+            
+            db.setTransactionSuccessful();
+            return deleted;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void removeCoverageTiles(SQLiteDatabase db, CoverageTile.Accumulator tiles) {
+        if (tiles.isEmpty()) {
+            return;
+        }
+        
+        SQLiteStatement remove = db.compileStatement(REMOVE_FROM_COVERAGE_TILE);
+        SQLiteStatement deleteEmpty = db.compileStatement(DELETE_EMPTY_COVERAGE_TILE);
+        try {
+            for (CoverageTile tile : tiles.getTiles()) {
+                remove.bindLong(1, tile.sampleCount);
+                remove.bindLong(2, tile.signalCount);
+                remove.bindLong(3, tile.signalSum);
+                remove.bindLong(4, tile.zoom);
+                remove.bindString(5, tile.groupType);
+                remove.bindLong(6, tile.tileX);
+                remove.bindLong(7, tile.tileY);
+                remove.bindString(8, tile.groupKey);
+                remove.executeUpdateDelete();
+                
+                deleteEmpty.bindLong(1, tile.zoom);
+                deleteEmpty.bindString(2, tile.groupType);
+                deleteEmpty.bindLong(3, tile.tileX);
+                deleteEmpty.bindLong(4, tile.tileY);
+                deleteEmpty.bindString(5, tile.groupKey);
+                deleteEmpty.executeUpdateDelete();
+            }
+        } finally {
+            remove.close();
+            deleteEmpty.close();
+        }
+    }
+
+    // Returns free pages to the filesystem, at most maxPages per call
+    public void incrementalVacuum(int maxPages) {
+        try (Cursor cursor = this.getWritableDatabase().rawQuery(
+                "PRAGMA incremental_vacuum(" + maxPages + ")", null)) {
+            while (cursor.moveToNext()) {
+                // Each step frees one page
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error running incremental vacuum", e);
+        }
+    }
+
+    // Databases created before auto_vacuum was enabled need one full VACUUM to switch mode. The
+    // VACUUM holds an exclusive lock for as long as it rewrites the file, so only call this while
+    // capture is stopped. Returns true when that conversion ran.
+    public boolean ensureIncrementalVacuum() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        if (queryLong(db, "PRAGMA auto_vacuum") == 2) {
+            return false;
+        }
+        
+        Log.i(TAG, "Converting database to incremental auto_vacuum");
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        db.execSQL("VACUUM");
+        return true;
+    }
+
+    public long getFreePageCount() {
+        return queryLong(this.getReadableDatabase(), "PRAGMA freelist_count");
+    }
+
+    // Column positions resolved once per cursor rather than once per field per row. Columns the
+    // cursor does not carry keep CellData's defaults.
+    private static class CellDataReader {
+        final int id, timestamp, technology, cellId, lac, mcc, mnc, signalStrength, isRegistered;
+        final int latitude, longitude, accuracy, pci, psc, bsic, earfcn, uarfcn, arfcn, nrarfcn;
+        final int timingAdvance, subscriptionId, simSlot, inReference, refLatitude, refLongitude, refRange;
+        final int additionalInfo;
+        
+        CellDataReader(Cursor cursor) {
+            id = cursor.getColumnIndex(COLUMN_ID);
+            timestamp = cursor.getColumnIndex(COLUMN_TIMESTAMP);
+            technology = cursor.getColumnIndex(COLUMN_TECHNOLOGY);
+            cellId = cursor.getColumnIndex(COLUMN_CELL_ID);
+            lac = cursor.getColumnIndex(COLUMN_LAC);
+            mcc = cursor.getColumnIndex(COLUMN_MCC);
+            mnc = cursor.getColumnIndex(COLUMN_MNC);
+            signalStrength = cursor.getColumnIndex(COLUMN_SIGNAL_STRENGTH);
+            isRegistered = cursor.getColumnIndex(COLUMN_IS_REGISTERED);
+            latitude = cursor.getColumnIndex(COLUMN_LATITUDE);
+            longitude = cursor.getColumnIndex(COLUMN_LONGITUDE);
+            accuracy = cursor.getColumnIndex(COLUMN_ACCURACY);
+            pci = cursor.getColumnIndex(COLUMN_PCI);
+            psc = cursor.getColumnIndex(COLUMN_PSC);
+            bsic = cursor.getColumnIndex(COLUMN_BSIC);
+            earfcn = cursor.getColumnIndex(COLUMN_EARFCN);
+            uarfcn = cursor.getColumnIndex(COLUMN_UARFCN);
+            arfcn = cursor.getColumnIndex(COLUMN_ARFCN);
+            nrarfcn = cursor.getColumnIndex(COLUMN_NRARFCN);
+            timingAdvance = cursor.getColumnIndex(COLUMN_TIMING_ADVANCE);
+            subscriptionId = cursor.getColumnIndex(COLUMN_SUBSCRIPTION_ID);
+            simSlot = cursor.getColumnIndex(COLUMN_SIM_SLOT);
+            inReference = cursor.getColumnIndex(COLUMN_IN_REFERENCE);
+            refLatitude = cursor.getColumnIndex(COLUMN_REF_LATITUDE);
+            refLongitude = cursor.getColumnIndex(COLUMN_REF_LONGITUDE);
+            refRange = cursor.getColumnIndex(COLUMN_REF_RANGE);
+            additionalInfo = cursor.getColumnIndex(COLUMN_ADDITIONAL_INFO);
+        }
+        
+        CellData read(Cursor cursor) {
+            CellData cellData = new CellData();
+            
+            cellData.id = number(cursor, id, 0L);
+            cellData.timestamp = number(cursor, timestamp, 0L);
+            cellData.technology = string(cursor, technology);
+            cellData.cellId = string(cursor, cellId);
+            cellData.lac = string(cursor, lac);
+            cellData.mcc = string(cursor, mcc);
+            cellData.mnc = string(cursor, mnc);
+            cellData.signalStrength = number(cursor, signalStrength, 0);
+            cellData.isRegistered = number(cursor, isRegistered, 0) == 1;
+            cellData.latitude = real(cursor, latitude);
+            cellData.longitude = real(cursor, longitude);
+            cellData.accuracy = (float) real(cursor, accuracy);
+            cellData.pci = number(cursor, pci, -1);
+            cellData.psc = number(cursor, psc, -1);
+            cellData.bsic = number(cursor, bsic, -1);
+            cellData.earfcn = number(cursor, earfcn, -1);
+            cellData.uarfcn = number(cursor, uarfcn, -1);
+            cellData.arfcn = number(cursor, arfcn, -1);
+            cellData.nrarfcn = number(cursor, nrarfcn, -1);
+            cellData.timingAdvance = number(cursor, timingAdvance, -1);
+            cellData.subscriptionId = number(cursor, subscriptionId, CellData.UNKNOWN_SUBSCRIPTION);
+            cellData.simSlot = number(cursor, simSlot, CellData.UNKNOWN_SLOT);
+            cellData.referenceStatus = number(cursor, inReference, CellData.REFERENCE_UNCHECKED);
+            cellData.referenceLatitude = real(cursor, refLatitude);
+            cellData.referenceLongitude = real(cursor, refLongitude);
+            cellData.referenceRange = number(cursor, refRange, -1);
+            cellData.additionalInfo = string(cursor, additionalInfo);
+            
+            return cellData;
+        }
+        
+        private static String string(Cursor cursor, int column) {
+            return column >= 0 ? cursor.getString(column) : null;
+        }
+        
+        private static int number(Cursor cursor, int column, int missing) {
+            return column >= 0 ? cursor.getInt(column) : missing;
+        }
+        
+        private static long number(Cursor cursor, int column, long missing) {
+            return column >= 0 ? cursor.getLong(column) : missing;
+        }
+        
+        private static double real(Cursor cursor, int column) {
+            return column >= 0 ? cursor.getDouble(column) : 0;
+        }
     }
 }
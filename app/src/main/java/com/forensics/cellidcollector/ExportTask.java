@@ -0,0 +1,89 @@
+package com.forensics.cellidcollector;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+// Writes CSV, GeoJSON and KML for a time window. Every format streams from a keyset-paged
+// cursor into a buffered file, so memory stays flat however large the capture is.
+public class ExportTask implements Runnable {
+    private static final String TAG = "ExportTask";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    public interface Listener {
+        void onExportComplete(List<File> files);
+
+        void onExportFailed(String message);
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final File directory;
+    private final long fromTimestamp;
+    private final long toTimestamp;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public ExportTask(DatabaseHelper dbHelper, File directory, long fromTimestamp, long toTimestamp,
+                      Listener listener) {
+        this.dbHelper = dbHelper;
+        this.directory = directory;
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+        this.listener = listener;
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        long start = System.currentTimeMillis();
+        String baseName = "CellID_Forensics_" +
+            new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
+        List<File> files = new ArrayList<>();
+
+        try {
+            File csvFile = new File(directory, baseName + ".csv");
+            try (Writer writer = openWriter(csvFile)) {
+                CsvExporter.export(dbHelper, fromTimestamp, toTimestamp, writer);
+            }
+            files.add(csvFile);
+
+            GeoExporter exporter = new GeoExporter(dbHelper, fromTimestamp, toTimestamp);
+            for (GeoExportWriter.Format format : GeoExportWriter.Format.values()) {
+                File geoFile = new File(directory, baseName + "." + format.extension);
+                try (Writer writer = openWriter(geoFile)) {
+                    GeoExporter.Result result = exporter.export(format, writer);
+                    Log.i(TAG, format + ": " + result.sightings + " sightings from " + result.observations +
+                        " observations, route " + result.routePoints + "/" + result.routeInput + " points");
+                }
+                files.add(geoFile);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Export failed", e);
+            final String message = e.getMessage();
+            mainHandler.post(() -> listener.onExportFailed(message));
+            return;
+        }
+
+        Log.i(TAG, "Exported " + files.size() + " files in " + (System.currentTimeMillis() - start) + " ms");
+        mainHandler.post(() -> listener.onExportComplete(files));
+    }
+
+    private static Writer openWriter(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+            WRITE_BUFFER_SIZE);
+    }
+}
@@ -10,7 +10,11 @@ import android.content.ServiceConnection;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.Environment;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.telephony.CellIdentityGsm;
 import android.telephony.CellIdentityLte;
 import android.telephony.CellIdentityNr;
@@ -23,32 +27,42 @@ import android.telephony.CellInfoWcdma;
 import android.telephony.TelephonyManager;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
-import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "CellIDForensics";
     private static final int PERMISSION_REQUEST_CODE = 1001;
+    private static final int RECENT_PAGE_SIZE = 50;
+    // Refreshes keep at most this many rows; older ones are paged back in on scroll
+    private static final int MAX_LOADED_ROWS = RECENT_PAGE_SIZE * 10;
+    // Start loading the next page of history this many rows before the end of the list
+    private static final int HISTORY_PREFETCH_DISTANCE = 15;
+    private static final long PROVIDER_SUMMARY_INTERVAL = 30000;
+    private static final long RECENT_EXPORT_WINDOW = 24 * 60 * 60 * 1000L;
+    // Startup budgets; exceeding them is logged as a warning so regressions show up in logcat
+    private static final long FIRST_FRAME_BUDGET_MS = 400;
+    private static final long FULLY_DRAWN_BUDGET_MS = 1500;
     
     private TextView statusText;
     private TextView countText;
     private TextView currentCellText;
-    private ListView cellListView;
+    private RecyclerView cellListView;
     private Button startButton;
     private Button stopButton;
     private Button exportButton;
@@ -57,10 +71,27 @@ public class MainActivity extends AppCompatActivity {
     private TelephonyManager telephonyManager;
     private CellMonitorService cellService;
     private boolean serviceBound = false;
-    private CellDataAdapter cellAdapter;
-    private List<CellData> cellDataList;
+    private RecentObservationsAdapter recentAdapter;
+    private LinearLayoutManager recentLayoutManager;
+    // Rows loaded so far, newest first. Confined to dataExecutor; the adapter only receives
+    // these immutable lists, so unchanged rows keep their objects across refreshes.
+    private List<CellData> loadedRows = Collections.emptyList();
+    private boolean historyExhausted = false;
+    private boolean loadingHistory = false;
+    // Count read with loadedRows, and the head the stored startup snapshot was taken at
+    private int loadedTotalCount = -1;
+    private long snapshotHeadId = -1;
     private DatabaseHelper dbHelper;
     
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ExecutorService dataExecutor;
+    private boolean refreshInFlight = false;
+    private boolean refreshPending = false;
+    private boolean providerSummaryDirty = true;
+    private long lastProviderSummaryTime = 0;
+    private boolean fullyDrawnReported = false;
+    private long createStartUptime;
+    
     private String[] requiredPermissions = {
         Manifest.permission.ACCESS_FINE_LOCATION,
         Manifest.permission.ACCESS_COARSE_LOCATION,
@@ -71,22 +102,32 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        createStartUptime = SystemClock.uptimeMillis();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         
         initializeViews();
         initializeData();
+        trackFirstFrame();
         checkPermissions();
         
         telephonyManager = (TelephonyManager) getSystemService(Context.TELEPHONY_SERVICE);
+        // Opening the helper is cheap; the database file itself is only opened on dataExecutor
         dbHelper = new DatabaseHelper(this);
+        dataExecutor = Executors.newSingleThreadExecutor();
         
         setupClickListeners();
+        renderSnapshot(StartupSnapshot.load(this));
         updateUI();
         
         // Register broadcast receiver for cell updates
         IntentFilter filter = new IntentFilter("CELL_DATA_UPDATE");
         registerReceiver(cellUpdateReceiver, filter);
+        
+        IntentFilter maintenanceFilter = new IntentFilter(CellMonitorService.PURGE_PROGRESS);
+        maintenanceFilter.addAction(CellMonitorService.PURGE_COMPLETE);
+        maintenanceFilter.addAction(CellMonitorService.COMPACT_COMPLETE);
+        registerReceiver(maintenanceReceiver, maintenanceFilter);
     }
 
     private void initializeViews() {
@@ -101,16 +142,66 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void initializeData() {
-        cellDataList = new ArrayList<>();
-        cellAdapter = new CellDataAdapter(this, cellDataList);
-        cellListView.setAdapter(cellAdapter);
+        recentAdapter = new RecentObservationsAdapter(this);
+        recentLayoutManager = new LinearLayoutManager(this);
+        cellListView.setLayoutManager(recentLayoutManager);
+        cellListView.setAdapter(recentAdapter);
+        cellListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && recentLayoutManager.findLastVisibleItemPosition() >=
+                        recentAdapter.getItemCount() - HISTORY_PREFETCH_DISTANCE) {
+                    loadOlderRows();
+                }
+            }
+        });
+    }
+
+    private void trackFirstFrame() {
+        final View content = findViewById(android.R.id.content);
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                long now = SystemClock.uptimeMillis();
+                logStartupPhase("First frame", now - createStartUptime, now - Process.getStartUptimeMillis(),
+                    FIRST_FRAME_BUDGET_MS);
+                return true;
+            }
+        });
+    }
+
+    private void logStartupPhase(String phase, long sinceCreate, long sinceProcessStart, long budget) {
+        String message = phase + ": " + sinceCreate + " ms after onCreate, " + sinceProcessStart +
+            " ms after process start (budget " + budget + " ms)";
+        if (sinceCreate > budget) {
+            Log.w(TAG, "Startup budget exceeded - " + message);
+        } else {
+            Log.i(TAG, message);
+        }
+    }
+
+    private void renderSnapshot(StartupSnapshot snapshot) {
+        countText.setText("Total Cells Detected: " + snapshot.totalCount);
+        recentAdapter.submitList(snapshot.recentCellData);
     }
 
     private void setupClickListeners() {
         startButton.setOnClickListener(v -> startMonitoring());
         stopButton.setOnClickListener(v -> stopMonitoring());
-        exportButton.setOnClickListener(v -> exportData());
+        exportButton.setOnClickListener(v -> exportData(Long.MIN_VALUE, Long.MAX_VALUE));
+        // Long press exports only the last day
+        exportButton.setOnLongClickListener(v -> {
+            long now = System.currentTimeMillis();
+            exportData(now - RECENT_EXPORT_WINDOW, now);
+            return true;
+        });
         clearButton.setOnClickListener(v -> clearData());
+        // Long press compacts the database file; the service refuses while it is capturing
+        clearButton.setOnLongClickListener(v -> {
+            compactDatabase();
+            return true;
+        });
     }
 
     private void checkPermissions() {
@@ -185,7 +276,8 @@ public class MainActivity extends AppCompatActivity {
             CellIdentityLte identity = lteInfo.getCellIdentity();
             cellText.append("Type: LTE (4G)\n");
             cellText.append("Cell ID: ").append(identity.getCi()).append("\n");
-            cellText.append("eNodeB: ").append(identity.getCi() >> 8).append("\n");
+            cellText.append("eNodeB: ").append(CellData.siteIdOf("LTE", identity.getCi()))
+                .append("  Sector: ").append(CellData.sectorOf("LTE", identity.getCi())).append("\n");
             cellText.append("TAC: ").append(identity.getTac()).append("\n");
             cellText.append("EARFCN: ").append(identity.getEarfcn()).append("\n");
         } else if (cellInfo instanceof CellInfoGsm) {
@@ -207,6 +299,8 @@ public class MainActivity extends AppCompatActivity {
             CellIdentityNr identity = (CellIdentityNr) nrInfo.getCellIdentity();
             cellText.append("Type: NR (5G)\n");
             cellText.append("Cell ID: ").append(identity.getNci()).append("\n");
+            cellText.append("gNodeB: ").append(CellData.siteIdOf("NR", identity.getNci()))
+                .append("  Sector: ").append(CellData.sectorOf("NR", identity.getNci())).append("\n");
             cellText.append("TAC: ").append(identity.getTac()).append("\n");
             cellText.append("NRARFCN: ").append(identity.getNrarfcn()).append("\n");
         }
@@ -214,64 +308,218 @@ public class MainActivity extends AppCompatActivity {
         currentCellText.setText(cellText.toString());
     }
 
-    private void exportData() {
-        try {
-            List<CellData> allData = dbHelper.getAllCellData();
-            
-            File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-            File exportFile = new File(downloadsDir, "CellID_Forensics_" + timestamp + ".csv");
-            
-            FileWriter writer = new FileWriter(exportFile);
-            
-            // Write CSV header
-            writer.append("Timestamp,Provider,Technology,Cell_ID,LAC_TAC,Signal_Strength,MCC,MNC,Location,Registered,Additional_Info\n");
-            
-            // Write data
-            for (CellData data : allData) {
-                writer.append(data.toCsvString()).append("\n");
+    private void exportData(long fromTimestamp, long toTimestamp) {
+        exportButton.setEnabled(false);
+        File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
+        
+        dataExecutor.execute(new ExportTask(dbHelper, downloadsDir, fromTimestamp, toTimestamp, new ExportTask.Listener() {
+            @Override
+            public void onExportComplete(List<File> files) {
+                if (isDestroyed()) {
+                    return;
+                }
+                exportButton.setEnabled(true);
+                Toast.makeText(MainActivity.this, "Data exported to: " + files.get(0).getParent(), Toast.LENGTH_LONG).show();
+                Log.i(TAG, "Data exported to: " + files);
             }
-            
-            writer.close();
-            
-            Toast.makeText(this, "Data exported to: " + exportFile.getAbsolutePath(), Toast.LENGTH_LONG).show();
-            Log.i(TAG, "Data exported to: " + exportFile.getAbsolutePath());
-            
-        } catch (IOException e) {
-            Toast.makeText(this, "Export failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            Log.e(TAG, "Export failed", e);
-        }
+
+            @Override
+            public void onExportFailed(String message) {
+                if (isDestroyed()) {
+                    return;
+                }
+                exportButton.setEnabled(true);
+                Toast.makeText(MainActivity.this, "Export failed: " + message, Toast.LENGTH_SHORT).show();
+            }
+        }));
     }
 
+    // Purges run in the service, on the executor its coverage and site rebuilds are serialized on,
+    // so neither this activity's refreshes nor a concurrent rebuild wait on or race with them
     private void clearData() {
-        dbHelper.clearAllData();
-        cellDataList.clear();
-        cellAdapter.notifyDataSetChanged();
+        clearButton.setEnabled(false);
+        countText.setText("Clearing data...");
+        startForegroundService(new Intent(this, CellMonitorService.class).setAction(CellMonitorService.ACTION_PURGE));
+    }
+
+    private void compactDatabase() {
+        clearButton.setEnabled(false);
+        startForegroundService(new Intent(this, CellMonitorService.class).setAction(CellMonitorService.ACTION_COMPACT));
+    }
+
+    private void onPurgeComplete(int deleted) {
+        StartupSnapshot.clear(this);
+        clearButton.setEnabled(true);
+        // The next refresh reloads the newest page of whatever survived
+        dataExecutor.execute(() -> {
+            loadedRows = Collections.emptyList();
+            historyExhausted = false;
+            loadedTotalCount = -1;
+            snapshotHeadId = -1;
+        });
         updateUI();
-        Toast.makeText(this, "All data cleared", Toast.LENGTH_SHORT).show();
+        Toast.makeText(this, "Cleared " + deleted + " records", Toast.LENGTH_SHORT).show();
     }
 
+    private void onCompactComplete(int result) {
+        clearButton.setEnabled(true);
+        String message = result == CellMonitorService.COMPACT_CONVERTED ? "Database compacted"
+            : result == CellMonitorService.COMPACT_RELEASED ? "Free space released"
+            : "Stop monitoring before compacting";
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+    }
+
+    // Loads counters and recent rows on dataExecutor; broadcasts arriving while a load is
+    // running collapse into a single follow-up load
     private void updateUI() {
-        int totalCount = dbHelper.getTotalCellCount();
+        providerSummaryDirty = true;
+        
+        if (refreshInFlight) {
+            refreshPending = true;
+            return;
+        }
+        refreshInFlight = true;
+        
+        dataExecutor.execute(() -> {
+            final int totalCount = dbHelper.getTotalCellCount();
+            final List<CellData> recent = loadNewerRows();
+            loadedTotalCount = totalCount;
+            
+            mainHandler.post(() -> {
+                if (isDestroyed()) {
+                    return;
+                }
+                bindLiveData(totalCount, recent);
+                
+                refreshInFlight = false;
+                if (refreshPending) {
+                    refreshPending = false;
+                    updateUI();
+                }
+            });
+        });
+    }
+
+    // Runs on dataExecutor. Only rows newer than the newest loaded one are read; if a whole page
+    // arrived there may be a gap, so the list restarts from the newest page. The list is capped
+    // at MAX_LOADED_ROWS so each refresh copies and diffs a bounded window on long captures.
+    private List<CellData> loadNewerRows() {
+        long newestId = loadedRows.isEmpty() ? 0 : loadedRows.get(0).id;
+        List<CellData> fresh = dbHelper.getCellDataNewerThan(newestId, RECENT_PAGE_SIZE);
+        
+        if (fresh.size() >= RECENT_PAGE_SIZE || loadedRows.isEmpty()) {
+            loadedRows = Collections.unmodifiableList(fresh);
+            historyExhausted = fresh.size() < RECENT_PAGE_SIZE;
+        } else if (!fresh.isEmpty()) {
+            int kept = Math.min(loadedRows.size(), Math.max(MAX_LOADED_ROWS - fresh.size(), 0));
+            List<CellData> rows = new ArrayList<>(fresh.size() + kept);
+            rows.addAll(fresh);
+            rows.addAll(loadedRows.subList(0, kept));
+            if (kept < loadedRows.size()) {
+                // The trimmed tail is loaded again by loadOlderRows when scrolled to
+                historyExhausted = false;
+            }
+            loadedRows = Collections.unmodifiableList(rows);
+        }
+        return loadedRows;
+    }
+
+    // Runs on dataExecutor; only rewrites the snapshot when the newest row has changed
+    private void saveSnapshot() {
+        if (loadedTotalCount < 0 || loadedRows.isEmpty() || loadedRows.get(0).id == snapshotHeadId) {
+            return;
+        }
+        StartupSnapshot.save(this, loadedTotalCount, loadedRows);
+        snapshotHeadId = loadedRows.get(0).id;
+    }
+
+    // Appends the next page of history when the list is scrolled near its end
+    private void loadOlderRows() {
+        if (loadingHistory) {
+            return;
+        }
+        loadingHistory = true;
+        
+        dataExecutor.execute(() -> {
+            // Before the first refresh loadedRows is empty while the list shows the startup
+            // snapshot, so only a page that actually grew the rows is submitted
+            boolean grew = false;
+            if (!historyExhausted && !loadedRows.isEmpty()) {
+                long oldestId = loadedRows.get(loadedRows.size() - 1).id;
+                List<CellData> older = dbHelper.getCellDataOlderThan(oldestId, RECENT_PAGE_SIZE);
+                historyExhausted = older.size() < RECENT_PAGE_SIZE;
+                if (!older.isEmpty()) {
+                    List<CellData> rows = new ArrayList<>(loadedRows.size() + older.size());
+                    rows.addAll(loadedRows);
+                    rows.addAll(older);
+                    loadedRows = Collections.unmodifiableList(rows);
+                    grew = true;
+                }
+            }
+            final List<CellData> rows = grew ? loadedRows : null;
+            
+            mainHandler.post(() -> {
+                loadingHistory = false;
+                if (rows != null && !isDestroyed()) {
+                    recentAdapter.submitList(rows);
+                }
+            });
+        });
+    }
+
+    private void bindLiveData(int totalCount, List<CellData> recent) {
         countText.setText("Total Cells Detected: " + totalCount);
+        recentAdapter.submitList(recent);
         
-        // Show provider statistics
-        List<CellData> allData = dbHelper.getAllCellData();
-        String providerSummary = ProviderHelper.generateProviderSummary(allData);
-        Log.d(TAG, "Provider Summary:\n" + providerSummary);
+        if (!fullyDrawnReported) {
+            fullyDrawnReported = true;
+            reportFullyDrawn();
+            long now = SystemClock.uptimeMillis();
+            logStartupPhase("Live data", now - createStartUptime, now - Process.getStartUptimeMillis(),
+                FULLY_DRAWN_BUDGET_MS);
+        }
         
-        // Check if all major providers detected
-        if (ProviderHelper.hasDetectedAllMajorProviders(allData)) {
-            Log.i(TAG, "🎉 ALL MAJOR PROVIDERS DETECTED!");
-        } else {
-            List<String> missing = ProviderHelper.getMissingProviders(allData);
-            Log.i(TAG, "Missing providers: " + missing.toString());
+        // Provider summaries scan the whole table, so they only run while the activity is in front
+        if (hasWindowFocus()) {
+            updateProviderSummary();
+        }
+    }
+
+    private void updateProviderSummary() {
+        long now = SystemClock.uptimeMillis();
+        if (!providerSummaryDirty || now - lastProviderSummaryTime < PROVIDER_SUMMARY_INTERVAL) {
+            return;
         }
+        providerSummaryDirty = false;
+        lastProviderSummaryTime = now;
         
-        // Load recent data for display
-        cellDataList.clear();
-        cellDataList.addAll(dbHelper.getRecentCellData(50)); // Show last 50 entries
-        cellAdapter.notifyDataSetChanged();
+        dataExecutor.execute(() -> {
+            // Show provider statistics, streamed so the table is never loaded into memory
+            CaptureSummary summary = new CaptureSummary();
+            dbHelper.scanObservations(Long.MIN_VALUE, Long.MAX_VALUE, false, DatabaseHelper.Projection.SUMMARY,
+                cellData -> {
+                    summary.accept(cellData);
+                    return true;
+                });
+            String providerSummary = ProviderHelper.formatProviderSummary(summary.byProvider, summary.observations);
+            Log.d(TAG, "Provider Summary:\n" + providerSummary);
+            
+            // Check if all major providers detected
+            List<String> missing = ProviderHelper.getMissingProviders(summary.mccs, summary.byProvider.keySet());
+            if (missing.isEmpty()) {
+                Log.i(TAG, "🎉 ALL MAJOR PROVIDERS DETECTED!");
+            } else {
+                Log.i(TAG, "Missing providers: " + missing.toString());
+            }
+        });
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasFocus) {
+        super.onWindowFocusChanged(hasFocus);
+        if (hasFocus && fullyDrawnReported) {
+            updateProviderSummary();
+        }
     }
 
     private boolean hasRequiredPermissions() {
@@ -307,6 +555,30 @@ public class MainActivity extends AppCompatActivity {
         }
     };
 
+    // Progress and results of maintenance the service runs for this activity
+    private BroadcastReceiver maintenanceReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (CellMonitorService.PURGE_PROGRESS.equals(action)) {
+                countText.setText("Clearing data... " + intent.getIntExtra(CellMonitorService.EXTRA_DELETED, 0) +
+                    "/" + intent.getIntExtra(CellMonitorService.EXTRA_TOTAL, 0));
+            } else if (CellMonitorService.PURGE_COMPLETE.equals(action)) {
+                onPurgeComplete(intent.getIntExtra(CellMonitorService.EXTRA_DELETED, 0));
+            } else if (CellMonitorService.COMPACT_COMPLETE.equals(action)) {
+                onCompactComplete(intent.getIntExtra(CellMonitorService.EXTRA_COMPACT_RESULT,
+                    CellMonitorService.COMPACT_REFUSED));
+            }
+        }
+    };
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // The snapshot only has to be current for the next cold start
+        dataExecutor.execute(this::saveSnapshot);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
@@ -314,8 +586,12 @@ public class MainActivity extends AppCompatActivity {
             unbindService(serviceConnection);
         }
         unregisterReceiver(cellUpdateReceiver);
-        if (dbHelper != null) {
-            dbHelper.close();
+        unregisterReceiver(maintenanceReceiver);
+        mainHandler.removeCallbacksAndMessages(null);
+        if (dataExecutor != null) {
+            // Close after any queued load so a running query never sees a closed database
+            dataExecutor.execute(dbHelper::close);
+            dataExecutor.shutdown();
         }
     }
 
@@ -0,0 +1,102 @@
+package com.forensics.cellidcollector;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+// Deletes matching observations in bounded chunks. Every chunk is its own short write
+// transaction and the task sleeps between chunks, so the capture writer never waits behind it
+// for more than one chunk.
+public class PurgeTask implements Runnable {
+    private static final String TAG = "PurgeTask";
+    private static final int CHUNK_SIZE = 2000;
+    private static final long CHUNK_PAUSE_MS = 50;
+    private static final int VACUUM_PAGES_PER_CHUNK = 256;
+
+    public interface Listener {
+        void onPurgeProgress(int deleted, int total);
+
+        void onPurgeComplete(int deleted);
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final SignalSeriesStore signalSeriesStore;
+    private final PurgeRequest request;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public PurgeTask(DatabaseHelper dbHelper, SignalSeriesStore signalSeriesStore, PurgeRequest request,
+                     Listener listener) {
+        this.dbHelper = dbHelper;
+        this.signalSeriesStore = signalSeriesStore;
+        this.request = request;
+        this.listener = listener;
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        long start = System.currentTimeMillis();
+
+        final int total = dbHelper.countPurgeCandidates(request);
+        Log.i(TAG, "Purging " + total + " observations: " + request);
+
+        // A full site rebuild already pending covers whatever this purge touches
+        boolean siteRebuildPending = dbHelper.isSiteRebuildRequired();
+        CellSite.Accumulator touchedSites = new CellSite.Accumulator();
+        int deleted = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                int chunk = dbHelper.purgeChunk(request, CHUNK_SIZE, touchedSites);
+                if (chunk == 0) {
+                    break;
+                }
+                deleted += chunk;
+                dbHelper.incrementalVacuum(VACUUM_PAGES_PER_CHUNK);
+
+                final int progress = deleted;
+                mainHandler.post(() -> listener.onPurgeProgress(progress, total));
+
+                Thread.sleep(CHUNK_PAUSE_MS);
+            }
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Purge interrupted after " + deleted + " observations");
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.e(TAG, "Error purging observations", e);
+        }
+
+        try {
+            signalSeriesStore.purge(request);
+        } catch (Exception e) {
+            Log.e(TAG, "Error purging signal series", e);
+        }
+
+        if (!siteRebuildPending && !touchedSites.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            try {
+                dbHelper.recomputeSites(touchedSites.getSites());
+            } catch (Exception e) {
+                Log.e(TAG, "Error recomputing purged sites", e);
+            }
+        }
+
+        try {
+            // Release whatever the per-chunk passes left behind. Databases created before
+            // auto_vacuum was enabled ignore this and reuse the free pages for later inserts; they
+            // are only converted by CellMonitorService.ACTION_COMPACT while capture is stopped.
+            dbHelper.incrementalVacuum((int) Math.min(Integer.MAX_VALUE, dbHelper.getFreePageCount()));
+        } catch (Exception e) {
+            Log.e(TAG, "Error reclaiming space after purge", e);
+        }
+
+        // Partial purges leave coverage tiles to rebuild. That rebuild is left to the caller, which
+        // owns the executor rebuilds are serialized on; sites were recomputed above unless the
+        // purge stopped early, in which case the flag it left makes that rebuild cover them.
+
+        Log.i(TAG, "Purged " + deleted + " observations in " + (System.currentTimeMillis() - start) + " ms");
+
+        final int result = deleted;
+        mainHandler.post(() -> listener.onPurgeComplete(result));
+    }
+}
@@ -0,0 +1,119 @@
+package com.forensics.cellidcollector;
+
+import android.content.Context;
+import android.util.LruCache;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+// Recent observations, newest first. Lists are diffed off the main thread by _id, so a refresh
+// only inserts the new rows at the top, and row text is formatted once per observation.
+public class RecentObservationsAdapter extends RecyclerView.Adapter<RecentObservationsAdapter.ViewHolder> {
+    private static final int FORMAT_CACHE_SIZE = 512;
+
+    // Observations are never updated after insert, so the same _id means the same row
+    private static final DiffUtil.ItemCallback<CellData> DIFF_CALLBACK = new DiffUtil.ItemCallback<CellData>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CellData oldItem, @NonNull CellData newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull CellData oldItem, @NonNull CellData newItem) {
+            return oldItem.id == newItem.id && oldItem.timestamp == newItem.timestamp;
+        }
+    };
+
+    private final AsyncListDiffer<CellData> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final LruCache<Long, CharSequence[]> formatCache = new LruCache<>(FORMAT_CACHE_SIZE);
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
+    private final LayoutInflater inflater;
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView title;
+        final TextView detail;
+        long boundId = -1;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            title = itemView.findViewById(android.R.id.text1);
+            detail = itemView.findViewById(android.R.id.text2);
+        }
+    }
+
+    public RecentObservationsAdapter(Context context) {
+        inflater = LayoutInflater.from(context);
+        setHasStableIds(true);
+    }
+
+    // Rows must not be mutated after they are submitted
+    public void submitList(List<CellData> rows) {
+        differ.submitList(rows);
+    }
+
+    public List<CellData> getCurrentList() {
+        return differ.getCurrentList();
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return new ViewHolder(inflater.inflate(android.R.layout.simple_list_item_2, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        CellData cellData = differ.getCurrentList().get(position);
+        if (holder.boundId == cellData.id) {
+            return;
+        }
+        holder.boundId = cellData.id;
+
+        CharSequence[] text = formatCache.get(cellData.id);
+        if (text == null) {
+            text = format(cellData);
+            formatCache.put(cellData.id, text);
+        }
+        holder.title.setText(text[0]);
+        holder.detail.setText(text[1]);
+    }
+
+    private CharSequence[] format(CellData cellData) {
+        StringBuilder title = new StringBuilder(64);
+        title.append(ProviderHelper.providerOf(cellData)).append(" • ").append(cellData.technology)
+            .append(" • CID ").append(cellData.cellId);
+        if (cellData.isRegistered) {
+            title.append(" (serving)");
+        }
+
+        StringBuilder detail = new StringBuilder(64);
+        detail.append(timeFormat.format(new Date(cellData.timestamp)))
+            .append("  LAC/TAC ").append(cellData.lac)
+            .append("  ").append(cellData.signalStrength).append(" dBm");
+        if (cellData.simSlot != CellData.UNKNOWN_SLOT) {
+            detail.append("  SIM ").append(cellData.simSlot + 1);
+        }
+        return new CharSequence[] {title.toString(), detail.toString()};
+    }
+}
@@ -0,0 +1,323 @@
+package com.forensics.cellidcollector;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+// Per-cell signal history. Samples are appended to an open, in-memory block per cell and
+// sealed into signal_series when the block is full, spans too long, goes idle, or is evicted.
+// Owned by CellMonitorService and built on its helper. The capture writer only touches memory:
+// sealed blocks are written, and open blocks rebuilt, on the service's maintenance executor.
+// Open blocks are not persisted: every write of sealed blocks stores a mark, the first cell_data
+// _id that may still be unsealed, and start() replays cell_data from that mark before live
+// samples are taken again. A database without a mark is backfilled from its first row.
+public class SignalSeriesStore {
+    private static final String TAG = "SignalSeriesStore";
+    private static final int MAX_BLOCK_SAMPLES = 720;
+    private static final long MAX_BLOCK_SPAN_MS = 6 * 60 * 60 * 1000L;
+    private static final long IDLE_SEAL_MS = 30 * 60 * 1000L;
+    private static final int MAX_OPEN_BLOCKS = 512;
+    private static final int SWEEP_INTERVAL = 256;
+    private static final int REPLAY_PAGE_SIZE = 2000;
+    // Live rows held while a replay runs; past this they are dropped and the replay reads them back
+    private static final int MAX_PENDING_ROWS = 10000;
+
+    private static class OpenBlock {
+        final String technology;
+        final String mcc;
+        final String mnc;
+        final long firstId;
+        SignalSeriesCodec.Encoder encoder = new SignalSeriesCodec.Encoder();
+        long lastAppend;
+
+        OpenBlock(CellData cellData) {
+            technology = cellData.technology;
+            mcc = cellData.mcc;
+            mnc = cellData.mnc;
+            firstId = cellData.id;
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final Executor executor;
+    private final Map<String, OpenBlock> openBlocks = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<SignalSeriesBlock> sealed = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private int appendsSinceSweep = 0;
+    // Last cell_data _id folded into a block or skipped; read from the stored mark by the replay
+    private long lastAppendedId = -1;
+    private boolean markLoaded = false;
+    private boolean replaying = true;
+    private final List<CellData> pending = new ArrayList<>();
+    private boolean pendingDropped = false;
+    // Latest sealed sample per cell, so a replay does not append what a block sealed after the mark holds
+    private final Map<String, Long> sealedUntil = new HashMap<>();
+
+    public SignalSeriesStore(DatabaseHelper dbHelper, Executor executor) {
+        this.dbHelper = dbHelper;
+        this.executor = executor;
+    }
+
+    // Queues the replay; live appends are held until it catches up
+    public void start() {
+        executor.execute(this::replayPage);
+    }
+
+    // Called on the capture writer with committed rows
+    public synchronized void append(List<CellData> batch) {
+        if (replaying) {
+            if (pending.size() + batch.size() > MAX_PENDING_ROWS) {
+                pending.clear();
+                pendingDropped = true;
+            }
+            pending.addAll(batch);
+            return;
+        }
+
+        for (CellData cellData : batch) {
+            appendSample(cellData);
+        }
+        if (openBlocks.size() > MAX_OPEN_BLOCKS || appendsSinceSweep >= SWEEP_INTERVAL) {
+            sweep(System.currentTimeMillis());
+        }
+        scheduleFlush();
+    }
+
+    // One page of the replay per executor task, so rebuilds and purges queued meanwhile interleave.
+    // Idle checks run on sample time so replayed history seals where live capture would have.
+    private void replayPage() {
+        long afterId;
+        synchronized (this) {
+            if (!markLoaded) {
+                lastAppendedId = dbHelper.getSignalSeriesMark() - 1;
+                markLoaded = true;
+            }
+            afterId = lastAppendedId;
+        }
+
+        // Only this executor folds rows in while replaying, so the page can be read unlocked
+        List<CellData> page = new ArrayList<>(REPLAY_PAGE_SIZE);
+        try {
+            dbHelper.scanObservationsAfterId(afterId, REPLAY_PAGE_SIZE, DatabaseHelper.Projection.SIGNAL, page::add);
+        } catch (IllegalStateException e) {
+            // Live samples stay held back; the next service start replays from the same mark
+            Log.e(TAG, "Error replaying signal series", e);
+            return;
+        }
+
+        boolean more;
+        synchronized (this) {
+            for (CellData cellData : page) {
+                if (isSeriesSample(cellData) && cellData.timestamp <= sealedUntil(CoverageTile.cellGroupKey(cellData))) {
+                    lastAppendedId = cellData.id;
+                } else {
+                    appendSample(cellData);
+                }
+                if (openBlocks.size() > MAX_OPEN_BLOCKS || appendsSinceSweep >= SWEEP_INTERVAL) {
+                    sweep(cellData.timestamp);
+                }
+            }
+
+            if (page.size() < REPLAY_PAGE_SIZE && !pendingDropped) {
+                // Rows committed after this page was read are all in pending
+                for (CellData cellData : pending) {
+                    appendSample(cellData);
+                }
+                pending.clear();
+                sealedUntil.clear();
+                replaying = false;
+                Log.i(TAG, "Signal series replay caught up at " + lastAppendedId);
+            }
+            // Dropped live rows are read back from cell_data by further pages
+            pendingDropped = false;
+            more = replaying;
+        }
+
+        flushSealed();
+        if (more) {
+            executor.execute(this::replayPage);
+        }
+    }
+
+    private long sealedUntil(String cellKey) {
+        Long until = sealedUntil.get(cellKey);
+        if (until == null) {
+            until = dbHelper.getSignalSeriesEndTimestamp(cellKey);
+            sealedUntil.put(cellKey, until);
+        }
+        return until;
+    }
+
+    private static boolean isSeriesSample(CellData cellData) {
+        return CoverageGrid.isValidSignal(cellData.signalStrength) && cellData.getCellIdentity() >= 0;
+    }
+
+    private void appendSample(CellData cellData) {
+        if (cellData.id <= lastAppendedId) {
+            return;
+        }
+        lastAppendedId = cellData.id;
+        if (!isSeriesSample(cellData)) {
+            return;
+        }
+
+        String cellKey = CoverageTile.cellGroupKey(cellData);
+        OpenBlock block = openBlocks.get(cellKey);
+        if (block != null && (block.encoder.getCount() >= MAX_BLOCK_SAMPLES ||
+                cellData.timestamp - block.encoder.getFirstTimestamp() > MAX_BLOCK_SPAN_MS ||
+                !block.encoder.canAppend(cellData.timestamp))) {
+            seal(cellKey, block);
+            openBlocks.remove(cellKey);
+            block = null;
+        }
+        if (block == null) {
+            block = new OpenBlock(cellData);
+            openBlocks.put(cellKey, block);
+        }
+
+        block.encoder.append(cellData.timestamp, cellData.signalStrength);
+        block.lastAppend = cellData.timestamp;
+        appendsSinceSweep++;
+    }
+
+    // Seals idle blocks, and the least recently used ones while over the open-block limit
+    private void sweep(long now) {
+        appendsSinceSweep = 0;
+        Iterator<Map.Entry<String, OpenBlock>> iterator = openBlocks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, OpenBlock> entry = iterator.next();
+            if (openBlocks.size() > MAX_OPEN_BLOCKS || now - entry.getValue().lastAppend > IDLE_SEAL_MS) {
+                seal(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void seal(String cellKey, OpenBlock block) {
+        if (block.encoder.getCount() > 0) {
+            sealed.add(SignalSeriesBlock.seal(cellKey, block.technology, block.mcc, block.mnc, block.encoder));
+        }
+    }
+
+    private void scheduleFlush() {
+        if (sealed.isEmpty() || flushScheduled) {
+            return;
+        }
+        try {
+            executor.execute(this::flushSealed);
+            flushScheduled = true;
+        } catch (RejectedExecutionException e) {
+            // Shutting down; sealAll() writes what is left
+        }
+    }
+
+    // Everything below the mark is in a block written now or earlier, since any block sealed
+    // later is still open and its first row bounds the mark
+    private synchronized long currentMark() {
+        long mark = lastAppendedId + 1;
+        for (OpenBlock block : openBlocks.values()) {
+            mark = Math.min(mark, block.firstId);
+        }
+        return mark;
+    }
+
+    private void flushSealed() {
+        List<SignalSeriesBlock> blocks;
+        long mark;
+        synchronized (this) {
+            flushScheduled = false;
+            if (sealed.isEmpty()) {
+                return;
+            }
+            blocks = new ArrayList<>(sealed);
+            sealed.clear();
+            mark = currentMark();
+        }
+        dbHelper.insertSignalSeriesBlocks(blocks, mark);
+        Log.v(TAG, "Sealed " + blocks.size() + " signal series blocks");
+    }
+
+    // Called once the capture writer and the executor have stopped
+    public void sealAll() {
+        List<SignalSeriesBlock> blocks;
+        long mark;
+        synchronized (this) {
+            if (!markLoaded) {
+                // The replay never ran, so nothing was folded in and the stored mark still holds
+                return;
+            }
+            for (Map.Entry<String, OpenBlock> entry : openBlocks.entrySet()) {
+                seal(entry.getKey(), entry.getValue());
+            }
+            openBlocks.clear();
+            blocks = new ArrayList<>(sealed);
+            sealed.clear();
+            mark = currentMark();
+        }
+        dbHelper.insertSignalSeriesBlocks(blocks, mark);
+    }
+
+    // Removes purged samples from held rows and from open and not yet written blocks, then from
+    // stored ones. Runs on the executor, after the matching cell_data rows are gone.
+    public void purge(PurgeRequest request) {
+        synchronized (this) {
+            sealedUntil.clear();
+            Iterator<CellData> rows = pending.iterator();
+            while (rows.hasNext()) {
+                CellData cellData = rows.next();
+                if (matches(request, cellData.technology, cellData.mcc, cellData.mnc) &&
+                        cellData.timestamp >= request.fromTimestamp && cellData.timestamp <= request.toTimestamp) {
+                    rows.remove();
+                }
+            }
+
+            Iterator<Map.Entry<String, OpenBlock>> iterator = openBlocks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, OpenBlock> entry = iterator.next();
+                OpenBlock open = entry.getValue();
+                if (!matches(request, open.technology, open.mcc, open.mnc)) {
+                    continue;
+                }
+
+                SignalSeriesBlock remaining = SignalSeriesBlock.seal(entry.getKey(), open.technology, open.mcc,
+                    open.mnc, open.encoder).without(request.fromTimestamp, request.toTimestamp);
+                if (remaining == null) {
+                    iterator.remove();
+                } else {
+                    SignalSeries series = remaining.decode();
+                    open.encoder = new SignalSeriesCodec.Encoder();
+                    for (int i = 0; i < series.size(); i++) {
+                        open.encoder.append(series.getTimestamp(i), series.getValue(i));
+                    }
+                }
+            }
+
+            List<SignalSeriesBlock> kept = new ArrayList<>(sealed.size());
+            for (SignalSeriesBlock block : sealed) {
+                SignalSeriesBlock remaining = matches(request, block.technology, block.mcc, block.mnc)
+                    ? block.without(request.fromTimestamp, request.toTimestamp) : block;
+                if (remaining != null) {
+                    kept.add(remaining);
+                }
+            }
+            sealed.clear();
+            sealed.addAll(kept);
+        }
+
+        dbHelper.purgeSignalSeries(request);
+    }
+
+    private static boolean matches(PurgeRequest request, String technology, String mcc, String mnc) {
+        if (!request.technologies.isEmpty() && !request.technologies.contains(technology)) {
+            return false;
+        }
+        return request.operators.isEmpty() || request.operators.contains(mcc + "-" + mnc);
+    }
+}
@@ -0,0 +1,118 @@
+package com.forensics.cellidcollector;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Small copy of the counters and newest rows so MainActivity can draw its first frame
+// without touching the database
+public class StartupSnapshot {
+    private static final String TAG = "StartupSnapshot";
+    private static final String PREFS_NAME = "startup_snapshot";
+    private static final String KEY_TOTAL_COUNT = "total_count";
+    private static final String KEY_RECENT = "recent";
+    static final int MAX_ROWS = 20;
+
+    public int totalCount;
+    public final List<CellData> recentCellData = new ArrayList<>();
+
+    public static StartupSnapshot load(Context context) {
+        StartupSnapshot snapshot = new StartupSnapshot();
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        snapshot.totalCount = prefs.getInt(KEY_TOTAL_COUNT, 0);
+
+        String recent = prefs.getString(KEY_RECENT, null);
+        if (recent == null) {
+            return snapshot;
+        }
+
+        try {
+            JSONArray rows = new JSONArray(recent);
+            for (int i = 0; i < rows.length(); i++) {
+                snapshot.recentCellData.add(fromJson(rows.getJSONObject(i)));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable startup snapshot", e);
+            snapshot.recentCellData.clear();
+        }
+        return snapshot;
+    }
+
+    public static void save(Context context, int totalCount, List<CellData> recentCellData) {
+        JSONArray rows = new JSONArray();
+        try {
+            for (int i = 0; i < recentCellData.size() && i < MAX_ROWS; i++) {
+                rows.put(toJson(recentCellData.get(i)));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Error serializing startup snapshot", e);
+            return;
+        }
+
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+            .putInt(KEY_TOTAL_COUNT, totalCount)
+            .putString(KEY_RECENT, rows.toString())
+            .apply();
+    }
+
+    public static void clear(Context context) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit().clear().apply();
+    }
+
+    private static JSONObject toJson(CellData cellData) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("id", cellData.id);
+        json.put("timestamp", cellData.timestamp);
+        json.put("technology", cellData.technology);
+        json.put("cellId", cellData.cellId);
+        json.put("lac", cellData.lac);
+        json.put("mcc", cellData.mcc);
+        json.put("mnc", cellData.mnc);
+        json.put("provider", cellData.provider);
+        json.put("signalStrength", cellData.signalStrength);
+        json.put("isRegistered", cellData.isRegistered);
+        json.put("latitude", cellData.latitude);
+        json.put("longitude", cellData.longitude);
+        json.put("pci", cellData.pci);
+        json.put("psc", cellData.psc);
+        json.put("earfcn", cellData.earfcn);
+        json.put("uarfcn", cellData.uarfcn);
+        json.put("arfcn", cellData.arfcn);
+        json.put("nrarfcn", cellData.nrarfcn);
+        json.put("simSlot", cellData.simSlot);
+        json.put("additionalInfo", cellData.additionalInfo);
+        return json;
+    }
+
+    private static CellData fromJson(JSONObject json) {
+        CellData cellData = new CellData();
+        cellData.id = json.optLong("id");
+        cellData.timestamp = json.optLong("timestamp");
+        cellData.technology = json.optString("technology", null);
+        cellData.cellId = json.optString("cellId", null);
+        cellData.lac = json.optString("lac", null);
+        cellData.mcc = json.optString("mcc", null);
+        cellData.mnc = json.optString("mnc", null);
+        cellData.provider = json.optString("provider", null);
+        cellData.signalStrength = json.optInt("signalStrength");
+        cellData.isRegistered = json.optBoolean("isRegistered");
+        cellData.latitude = json.optDouble("latitude", 0);
+        cellData.longitude = json.optDouble("longitude", 0);
+        cellData.pci = json.optInt("pci", -1);
+        cellData.psc = json.optInt("psc", -1);
+        cellData.earfcn = json.optInt("earfcn", -1);
+        cellData.uarfcn = json.optInt("uarfcn", -1);
+        cellData.arfcn = json.optInt("arfcn", -1);
+        cellData.nrarfcn = json.optInt("nrarfcn", -1);
+        cellData.simSlot = json.optInt("simSlot", CellData.UNKNOWN_SLOT);
+        cellData.additionalInfo = json.optString("additionalInfo", null);
+        return cellData;
+    }
+}
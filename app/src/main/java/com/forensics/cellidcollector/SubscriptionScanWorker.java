@@ -0,0 +1,102 @@
+package com.forensics.cellidcollector;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.telephony.CellInfo;
+import android.telephony.PhoneStateListener;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SubscriptionScanWorker {
+    private static final String TAG = "SubscriptionScanWorker";
+
+    public interface Callback {
+        void onCellInfoScanned(SubscriptionScanWorker worker, List<CellInfo> cellInfoList);
+    }
+
+    private final int subscriptionId;
+    private final int simSlot;
+    private final TelephonyManager telephonyManager;
+    private final Callback callback;
+    private final HandlerThread scanThread;
+    private final Handler scanHandler;
+    private final AtomicBoolean scanPending = new AtomicBoolean(false);
+
+    private final Runnable scanRunnable = new Runnable() {
+        @Override
+        public void run() {
+            scanPending.set(false);
+            scanCellTowers();
+        }
+    };
+
+    // Must be constructed on a Looper thread so the listener has somewhere to deliver callbacks
+    private final PhoneStateListener phoneStateListener = new PhoneStateListener() {
+        @Override
+        public void onCellLocationChanged(android.telephony.CellLocation location) {
+            Log.d(TAG, "Cell location changed on subscription " + subscriptionId);
+            requestScan();
+        }
+    };
+
+    public SubscriptionScanWorker(TelephonyManager telephonyManager, int subscriptionId, int simSlot,
+                                  Callback callback) {
+        this.telephonyManager = telephonyManager;
+        this.subscriptionId = subscriptionId;
+        this.simSlot = simSlot;
+        this.callback = callback;
+        scanThread = new HandlerThread("CellScan-sub" + subscriptionId, Process.THREAD_PRIORITY_BACKGROUND);
+        scanThread.start();
+        scanHandler = new Handler(scanThread.getLooper());
+    }
+
+    public int getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public int getSimSlot() {
+        return simSlot;
+    }
+
+    public void start() {
+        Log.d(TAG, "Starting worker for subscription " + subscriptionId + " (slot " + simSlot + ")");
+
+        try {
+            telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_CELL_LOCATION);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Security exception listening on subscription " + subscriptionId, e);
+        }
+        requestScan();
+    }
+
+    // Coalesces overlapping requests so a slow modem never builds up a backlog of scans
+    public void requestScan() {
+        if (scanPending.compareAndSet(false, true)) {
+            scanHandler.post(scanRunnable);
+        }
+    }
+
+    public void stop() {
+        Log.d(TAG, "Stopping worker for subscription " + subscriptionId);
+
+        telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_NONE);
+        scanHandler.removeCallbacks(scanRunnable);
+        scanThread.quitSafely();
+    }
+
+    private void scanCellTowers() {
+        try {
+            List<CellInfo> cellInfoList = telephonyManager.getAllCellInfo();
+
+            if (cellInfoList != null) {
+                callback.onCellInfoScanned(this, cellInfoList);
+            }
+        } catch (SecurityException e) {
+            Log.e(TAG, "Security exception scanning subscription " + subscriptionId, e);
+        }
+    }
+}
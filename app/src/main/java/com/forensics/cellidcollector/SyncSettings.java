@@ -0,0 +1,42 @@
+package com.forensics.cellidcollector;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.UUID;
+
+// Collection endpoint and the stable device id sent with every sync chunk
+public class SyncSettings {
+    private static final String PREFS_NAME = "sync_settings";
+    private static final String KEY_ENDPOINT = "endpoint";
+    private static final String KEY_DEVICE_ID = "device_id";
+
+    public static String getEndpoint(Context context) {
+        return prefs(context).getString(KEY_ENDPOINT, null);
+    }
+
+    // An empty or null endpoint turns sync off
+    public static void setEndpoint(Context context, String endpoint) {
+        SharedPreferences.Editor editor = prefs(context).edit();
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            editor.remove(KEY_ENDPOINT);
+        } else {
+            editor.putString(KEY_ENDPOINT, endpoint.trim());
+        }
+        editor.apply();
+    }
+
+    public static synchronized String getDeviceId(Context context) {
+        SharedPreferences prefs = prefs(context);
+        String deviceId = prefs.getString(KEY_DEVICE_ID, null);
+        if (deviceId == null) {
+            deviceId = UUID.randomUUID().toString();
+            prefs.edit().putString(KEY_DEVICE_ID, deviceId).commit();
+        }
+        return deviceId;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,293 @@
+package com.forensics.cellidcollector.cli;
+
+import com.forensics.cellidcollector.CaptureAnalyzer;
+import com.forensics.cellidcollector.CellDataStore;
+import com.forensics.cellidcollector.CsvExporter;
+import com.forensics.cellidcollector.GeoExportWriter;
+import com.forensics.cellidcollector.GeoExporter;
+import com.forensics.cellidcollector.JdbcCellDataStore;
+import com.forensics.cellidcollector.SignalSeries;
+import com.forensics.cellidcollector.SignalSeriesReport;
+import com.forensics.cellidcollector.SiteReport;
+import com.forensics.cellidcollector.SyncClient;
+import com.forensics.cellidcollector.SyncEngine;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Workstation analyzer for cellid_forensics.db files pulled off a device:
+//   cellid summary  <db> [--from T] [--to T]
+//   cellid timeline <db> [--bucket 15m|1h|1d] [--from T] [--to T]
+//   cellid signal   <db> [--bucket 15m|1h|1d] [--from T] [--to T]
+//   cellid series   <db> [--cell KEY] [--from T] [--to T]
+//   cellid sites    <db> [--from T] [--to T]
+//   cellid export   <db> --format csv|geojson|kml [--out FILE] [--from T] [--to T]
+//   cellid sync     <db> --endpoint URL [--device ID]
+//   cellid serve    [--port 8080] [--out DIR] [--fail-rate 0.0]
+// T is epoch milliseconds, yyyy-MM-dd or yyyy-MM-ddTHH:mm in local time. KEY is a cell as
+// technology:mcc:mnc:lac:cellId, as listed by series without --cell.
+public class CellIdCli {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    public static void main(String[] args) {
+        if (args.length >= 1 && args[0].equals("serve")) {
+            serve(args);
+            return;
+        }
+        if (args.length < 2) {
+            usage();
+            System.exit(2);
+        }
+
+        String command = args[0];
+        File database = new File(args[1]);
+        Map<String, String> options = parseOptions(args, 2);
+        if (options == null || !database.isFile()) {
+            if (!database.isFile()) {
+                System.err.println("No such database: " + database);
+            }
+            usage();
+            System.exit(2);
+        }
+
+        long from;
+        long to;
+        try {
+            from = parseTime(options.get("from"), Long.MIN_VALUE);
+            to = parseTime(options.get("to"), Long.MAX_VALUE);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        int status;
+        try (JdbcCellDataStore store = new JdbcCellDataStore(database.getPath())) {
+            status = run(command, database, store, options, from, to);
+        } catch (IOException | RuntimeException e) {
+            System.err.println(command + " failed: " + e);
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    private static int run(String command, File database, JdbcCellDataStore store, Map<String, String> options,
+                           long from, long to) throws IOException {
+        long start = System.currentTimeMillis();
+        switch (command) {
+            case "summary":
+                System.out.print(new CaptureAnalyzer(store).summarize(from, to).format());
+                break;
+            case "timeline":
+                long bucketMs = parseDuration(options.getOrDefault("bucket", "1h"));
+                System.out.print(new CaptureAnalyzer(store).timeline(from, to, bucketMs).format());
+                break;
+            case "signal":
+                long profileBucketMs = parseDuration(options.getOrDefault("bucket", "1h"));
+                System.out.print(new CaptureAnalyzer(store).signalProfile(from, to, profileBucketMs).format());
+                break;
+            case "series":
+                series(store, options.get("cell"), from, to);
+                break;
+            case "sites":
+                SiteReport sites = new SiteReport();
+                store.scanObservations(from, to, false, cellData -> {
+                    sites.accept(cellData);
+                    return true;
+                });
+                System.out.print(sites.format());
+                break;
+            case "export":
+                export(store, options, from, to);
+                break;
+            case "sync":
+                return sync(database, store, options);
+            default:
+                System.err.println("Unknown command: " + command);
+                usage();
+                return 2;
+        }
+        System.err.println(command + " finished in " + (System.currentTimeMillis() - start) + " ms");
+        return 0;
+    }
+
+    private static void export(CellDataStore store, Map<String, String> options, long from, long to)
+            throws IOException {
+        String format = options.getOrDefault("format", "csv").toLowerCase(Locale.US);
+        String out = options.get("out");
+        Writer writer = out == null
+            ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)
+            : new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8),
+                WRITE_BUFFER_SIZE);
+
+        try {
+            if (format.equals("csv")) {
+                int rows = CsvExporter.export(store, from, to, writer);
+                System.err.println("Exported " + rows + " observations");
+            } else {
+                GeoExportWriter.Format geoFormat = GeoExportWriter.Format.valueOf(format.toUpperCase(Locale.US));
+                GeoExporter.Result result = new GeoExporter(store, from, to).export(geoFormat, writer);
+                System.err.println("Exported " + result.sightings + " sightings from " + result.observations +
+                    " observations, route " + result.routePoints + "/" + result.routeInput + " points");
+            }
+        } finally {
+            if (out == null) {
+                writer.flush();
+            } else {
+                writer.close();
+            }
+        }
+    }
+
+    // Signal history from the compressed series: per-cell storage, or one cell's samples
+    private static void series(JdbcCellDataStore store, String cellKey, long from, long to) {
+        if (cellKey == null) {
+            SignalSeriesReport report = new SignalSeriesReport();
+            store.scanSignalSeriesBlocks(null, from, to, report::accept);
+            System.out.print(report.format());
+            return;
+        }
+        SignalSeries series = store.readSignalSeries(cellKey, from, to);
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < series.size(); i++) {
+            out.append(series.getTimestamp(i)).append(',').append(series.getValue(i)).append('\n');
+        }
+        System.out.print(out);
+        System.err.println(series.size() + " samples");
+    }
+
+    // Pushes a pulled database to a collection server. Progress is kept in <db>.sync so an
+    // interrupted upload resumes from the last acknowledged chunk.
+    private static int sync(File database, CellDataStore store, Map<String, String> options) throws IOException {
+        String endpoint = options.get("endpoint");
+        if (endpoint == null) {
+            System.err.println("sync needs --endpoint");
+            return 2;
+        }
+        File progress = new File(database.getPath() + ".sync");
+        String deviceId = options.getOrDefault("device", database.getName().replaceAll("[^A-Za-z0-9._-]", "_"));
+
+        SyncEngine.Checkpoint checkpoint = new SyncEngine.Checkpoint() {
+            @Override
+            public long load() {
+                try {
+                    return progress.isFile()
+                        ? Long.parseLong(new String(Files.readAllBytes(progress.toPath()), StandardCharsets.UTF_8).trim())
+                        : 0;
+                } catch (IOException | NumberFormatException e) {
+                    throw new IllegalStateException("Unreadable sync progress " + progress, e);
+                }
+            }
+
+            @Override
+            public void save(long highWaterMark) {
+                try {
+                    File temporary = new File(progress.getPath() + ".tmp");
+                    Files.write(temporary.toPath(), String.valueOf(highWaterMark).getBytes(StandardCharsets.UTF_8));
+                    Files.move(temporary.toPath(), progress.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot write sync progress " + progress, e);
+                }
+            }
+        };
+
+        try {
+            SyncEngine.Result result = new SyncEngine(store, new SyncClient(endpoint, deviceId), checkpoint, null).run();
+            System.out.println(result);
+            return result.failure == null ? 0 : 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    private static void serve(String[] args) {
+        Map<String, String> options = parseOptions(args, 1);
+        if (options == null) {
+            usage();
+            System.exit(2);
+        }
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        File out = new File(options.getOrDefault("out", "sync-received"));
+        double failureRate = Double.parseDouble(options.getOrDefault("fail-rate", "0"));
+        try {
+            new SyncStandInServer(out, failureRate).start(port);
+            System.err.println("Accepting sync chunks on http://localhost:" + port + "/ into " + out);
+        } catch (IOException e) {
+            System.err.println("serve failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    // --name value pairs after the positional arguments
+    private static Map<String, String> parseOptions(String[] args, int first) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = first; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                System.err.println("Bad option: " + args[i]);
+                return null;
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static long parseTime(String value, long missing) {
+        if (value == null) {
+            return missing;
+        }
+        if (value.matches("\\d+")) {
+            return Long.parseLong(value);
+        }
+        try {
+            LocalDateTime time = value.length() <= 10
+                ? LocalDate.parse(value).atStartOfDay()
+                : LocalDateTime.parse(value);
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Bad time: " + value);
+        }
+    }
+
+    private static long parseDuration(String value) {
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        switch (value.charAt(value.length() - 1)) {
+            case 'm':
+                return amount * 60 * 1000L;
+            case 'h':
+                return amount * 60 * 60 * 1000L;
+            case 'd':
+                return amount * 24 * 60 * 60 * 1000L;
+            default:
+                throw new IllegalArgumentException("Bad bucket: " + value);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage:");
+        System.err.println("  cellid summary  <db> [--from T] [--to T]");
+        System.err.println("  cellid timeline <db> [--bucket 15m|1h|1d] [--from T] [--to T]");
+        System.err.println("  cellid signal   <db> [--bucket 15m|1h|1d] [--from T] [--to T]");
+        System.err.println("  cellid series   <db> [--cell KEY] [--from T] [--to T]");
+        System.err.println("  cellid sites    <db> [--from T] [--to T]");
+        System.err.println("  cellid export   <db> --format csv|geojson|kml [--out FILE] [--from T] [--to T]");
+        System.err.println("  cellid sync     <db> --endpoint URL [--device ID]");
+        System.err.println("  cellid serve    [--port 8080] [--out DIR] [--fail-rate 0.0]");
+        System.err.println("T is epoch milliseconds, yyyy-MM-dd or yyyy-MM-ddTHH:mm (local time)");
+    }
+}
@@ -0,0 +1,110 @@
+package com.forensics.cellidcollector.cli;
+
+import com.forensics.cellidcollector.SyncClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+// Minimal collection endpoint for exercising sync on a workstation. Appends accepted rows to
+// <out>/<device>.ndjson, drops rows it already holds, answers a repeated chunk with 409 and can
+// fail a share of requests with 503 to exercise retry and backoff.
+public class SyncStandInServer {
+    private static final Pattern ID_PATTERN = Pattern.compile("^\\{\"id\":(\\d+)");
+
+    private final File outputDirectory;
+    private final double failureRate;
+    private final Random random = new Random();
+    private final Set<String> seenChunks = new HashSet<>();
+    private final Map<String, Set<Long>> seenRows = new HashMap<>();
+
+    public SyncStandInServer(File outputDirectory, double failureRate) {
+        this.outputDirectory = outputDirectory;
+        this.failureRate = failureRate;
+    }
+
+    public HttpServer start(int port) throws IOException {
+        outputDirectory.mkdirs();
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        return server;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "POST only");
+                return;
+            }
+            String deviceId = exchange.getRequestHeaders().getFirst(SyncClient.HEADER_DEVICE_ID);
+            String chunkKey = exchange.getRequestHeaders().getFirst(SyncClient.HEADER_IDEMPOTENCY_KEY);
+            if (deviceId == null || chunkKey == null || !deviceId.matches("[A-Za-z0-9._-]+")) {
+                respond(exchange, 400, "Missing or bad device id / idempotency key");
+                return;
+            }
+            if (random.nextDouble() < failureRate) {
+                respond(exchange, 503, "Injected failure");
+                return;
+            }
+
+            int accepted;
+            synchronized (this) {
+                if (seenChunks.contains(chunkKey)) {
+                    respond(exchange, 409, "Chunk already stored");
+                    return;
+                }
+                accepted = store(deviceId, exchange.getRequestBody(),
+                    "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding")));
+                seenChunks.add(chunkKey);
+            }
+            System.err.println(deviceId + " " + chunkKey + ": " + accepted + " new rows");
+            respond(exchange, 200, "{\"accepted\":" + accepted + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int store(String deviceId, InputStream body, boolean gzip) throws IOException {
+        Set<Long> rows = seenRows.computeIfAbsent(deviceId, key -> new HashSet<>());
+        int accepted = 0;
+        InputStream in = gzip ? new GZIPInputStream(body) : body;
+        File file = new File(outputDirectory, deviceId + ".ndjson");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = ID_PATTERN.matcher(line);
+                if (matcher.find() && rows.add(Long.parseLong(matcher.group(1)))) {
+                    out.write(line);
+                    out.write('\n');
+                    accepted++;
+                }
+            }
+        }
+        return accepted;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
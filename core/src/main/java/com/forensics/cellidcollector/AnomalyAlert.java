@@ -0,0 +1,51 @@
+package com.forensics.cellidcollector;
+
+public class AnomalyAlert {
+    public static final String SEVERITY_LOW = "LOW";
+    public static final String SEVERITY_MEDIUM = "MEDIUM";
+    public static final String SEVERITY_HIGH = "HIGH";
+
+    public long id;
+    public long timestamp;
+    public String rule;
+    public double score;
+    public long observationId;
+    public String technology;
+    public String mcc;
+    public String mnc;
+    public String lac;
+    public String cellId;
+    public int subscriptionId = CellData.UNKNOWN_SUBSCRIPTION;
+    public String message;
+
+    public AnomalyAlert() {}
+
+    public AnomalyAlert(String rule, double score, CellData cellData, String message) {
+        this.rule = rule;
+        this.score = Math.max(0.0, Math.min(1.0, score));
+        this.timestamp = cellData.timestamp;
+        this.observationId = cellData.id;
+        this.technology = cellData.technology;
+        this.mcc = cellData.mcc;
+        this.mnc = cellData.mnc;
+        this.lac = cellData.lac;
+        this.cellId = cellData.cellId;
+        this.subscriptionId = cellData.subscriptionId;
+        this.message = message;
+    }
+
+    public String getSeverity() {
+        if (score >= 0.75) {
+            return SEVERITY_HIGH;
+        } else if (score >= 0.5) {
+            return SEVERITY_MEDIUM;
+        }
+        return SEVERITY_LOW;
+    }
+
+    @Override
+    public String toString() {
+        return getSeverity() + " " + rule + " " + technology + " " + mcc + "-" + mnc + " LAC/TAC " + lac +
+            " Cell " + cellId + ": " + message;
+    }
+}
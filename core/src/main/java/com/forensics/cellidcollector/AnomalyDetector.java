@@ -0,0 +1,72 @@
+package com.forensics.cellidcollector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Not thread-safe: each stream (live writer thread, or one bulk partition) owns its own detector
+public class AnomalyDetector {
+    private static final long ALERT_COOLDOWN_MS = 10 * 60 * 1000;
+
+    private final List<AnomalyRule> rules;
+    private final Map<String, Long> lastAlerted = new AnomalyRules.BoundedMap<>(AnomalyRules.MAX_TRACKED_CELLS);
+    private final List<AnomalyAlert> scratch = new ArrayList<>();
+
+    public AnomalyDetector(List<AnomalyRule> rules) {
+        this.rules = rules;
+    }
+
+    public static List<AnomalyRule> createRules(AnomalyRule.Scope scope) {
+        List<AnomalyRule> rules = new ArrayList<>();
+        if (scope == null || scope == AnomalyRule.Scope.SITE) {
+            rules.add(new AnomalyRules.LacChangeRule());
+            rules.add(new AnomalyRules.UnknownSectorRule());
+            rules.add(new AnomalyRules.TimingAdvanceRule());
+            rules.add(new AnomalyRules.CellTeleportRule());
+        }
+        if (scope == null || scope == AnomalyRule.Scope.SUBSCRIPTION) {
+            rules.add(new AnomalyRules.GsmDowngradeRule());
+        }
+        return rules;
+    }
+
+    public static AnomalyDetector createDefault() {
+        return new AnomalyDetector(createRules(null));
+    }
+
+    // Site-scoped rules only share state within a site, so partitioning by site key is lossless
+    public static int partitionOf(CellData cellData, int partitions) {
+        return Math.floorMod(AnomalyRules.siteKey(cellData).hashCode(), partitions);
+    }
+
+    public List<AnomalyAlert> process(CellData cellData) {
+        scratch.clear();
+        for (AnomalyRule rule : rules) {
+            rule.evaluate(cellData, scratch);
+        }
+        if (scratch.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<AnomalyAlert> alerts = new ArrayList<>(scratch.size());
+        for (AnomalyAlert alert : scratch) {
+            String key = alert.rule + "/" + AnomalyRules.identityKey(cellData);
+            Long previous = lastAlerted.get(key);
+            if (previous != null && alert.timestamp - previous < ALERT_COOLDOWN_MS) {
+                continue;
+            }
+            lastAlerted.put(key, alert.timestamp);
+            alerts.add(alert);
+        }
+        return alerts;
+    }
+
+    public List<AnomalyAlert> processBatch(List<CellData> batch) {
+        List<AnomalyAlert> alerts = new ArrayList<>();
+        for (CellData cellData : batch) {
+            alerts.addAll(process(cellData));
+        }
+        return alerts;
+    }
+}
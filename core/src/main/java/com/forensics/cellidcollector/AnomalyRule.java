@@ -0,0 +1,19 @@
+package com.forensics.cellidcollector;
+
+import java.util.List;
+
+public interface AnomalyRule {
+    enum Scope {
+        // State is keyed by cell or site; the stream can be partitioned by site key
+        SITE,
+        // State follows the serving cell of one subscription; needs every registered observation
+        SUBSCRIPTION
+    }
+
+    String getName();
+
+    Scope getScope();
+
+    // Observations arrive in timestamp order; implementations must keep bounded state
+    void evaluate(CellData cellData, List<AnomalyAlert> alerts);
+}
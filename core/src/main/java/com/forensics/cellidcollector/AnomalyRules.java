@@ -0,0 +1,375 @@
+package com.forensics.cellidcollector;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Rogue base station indicators evaluated by AnomalyDetector
+public final class AnomalyRules {
+    public static final String RULE_LAC_CHANGE = "LAC_CHANGE";
+    public static final String RULE_UNKNOWN_SECTOR = "UNKNOWN_SECTOR";
+    public static final String RULE_GSM_DOWNGRADE = "GSM_DOWNGRADE";
+    public static final String RULE_TIMING_ADVANCE = "TIMING_ADVANCE";
+    public static final String RULE_CELL_TELEPORT = "CELL_TELEPORT";
+
+    static final int MAX_TRACKED_CELLS = 4096;
+    static final int MAX_TRACKED_SITES = 1024;
+
+    private AnomalyRules() {}
+
+    // LTE ECIs and NR NCIs are unique within the PLMN; GSM and UMTS CIDs only within their LAC
+    public static String identityKey(CellData cellData) {
+        if (hasGlobalIdentity(cellData)) {
+            return cellData.technology + ":" + cellData.mcc + ":" + cellData.mnc + ":" + cellData.cellId;
+        }
+        return cellData.technology + ":" + cellData.mcc + ":" + cellData.mnc + ":" + cellData.lac + ":" +
+            cellData.cellId;
+    }
+
+    static boolean hasGlobalIdentity(CellData cellData) {
+        return "LTE".equals(cellData.technology) || "NR".equals(cellData.technology);
+    }
+
+    // eNodeB / gNodeB for LTE and NR; 2G/3G cells have no sector structure and act as their own site
+    public static String siteKey(CellData cellData) {
+        long siteId = cellData.getSiteId();
+        if (siteId >= 0) {
+            return CellSite.key(cellData.technology, cellData.mcc, cellData.mnc, siteId);
+        }
+        return identityKey(cellData);
+    }
+
+    static boolean isValidArea(String lac) {
+        if (lac == null) {
+            return false;
+        }
+        try {
+            long value = Long.parseLong(lac);
+            return value > 0 && value != 65535 && value != Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+            Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+            Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 6371000.0 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    static class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        BoundedMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    // An LTE/NR cell identity is broadcast in exactly one tracking area. GSM and UMTS CIDs are
+    // reused across LACs, so the same CID in another LAC is simply another cell.
+    public static class LacChangeRule implements AnomalyRule {
+        private final Map<String, String> lastArea = new BoundedMap<>(MAX_TRACKED_CELLS);
+
+        @Override
+        public String getName() {
+            return RULE_LAC_CHANGE;
+        }
+
+        @Override
+        public Scope getScope() {
+            return Scope.SITE;
+        }
+
+        @Override
+        public void evaluate(CellData cellData, List<AnomalyAlert> alerts) {
+            if (!hasGlobalIdentity(cellData) || cellData.getCellIdentity() < 0 || !isValidArea(cellData.lac)) {
+                return;
+            }
+
+            String key = identityKey(cellData);
+            String previous = lastArea.put(key, cellData.lac);
+            if (previous != null && !previous.equals(cellData.lac)) {
+                double score = cellData.isRegistered ? 0.8 : 0.6;
+                alerts.add(new AnomalyAlert(RULE_LAC_CHANGE, score, cellData,
+                    "Cell moved from LAC/TAC " + previous + " to " + cellData.lac));
+            }
+        }
+    }
+
+    // A sector that appears on an eNodeB/gNodeB only after the site has been observed for a while
+    public static class UnknownSectorRule implements AnomalyRule {
+        private static final int MIN_SITE_OBSERVATIONS = 20;
+        private static final long MIN_SITE_AGE_MS = 10 * 60 * 1000;
+        private static final int MAX_SECTORS_PER_SITE = 64;
+
+        private static class SiteState {
+            final Set<Integer> sectors = new HashSet<>();
+            final long firstSeen;
+            int observations;
+
+            SiteState(long firstSeen) {
+                this.firstSeen = firstSeen;
+            }
+        }
+
+        private final Map<String, SiteState> sites = new BoundedMap<>(MAX_TRACKED_SITES);
+
+        @Override
+        public String getName() {
+            return RULE_UNKNOWN_SECTOR;
+        }
+
+        @Override
+        public Scope getScope() {
+            return Scope.SITE;
+        }
+
+        @Override
+        public void evaluate(CellData cellData, List<AnomalyAlert> alerts) {
+            int sector = cellData.getSector();
+            if (sector < 0) {
+                return;
+            }
+
+            String key = siteKey(cellData);
+            SiteState site = sites.get(key);
+            if (site == null) {
+                site = new SiteState(cellData.timestamp);
+                sites.put(key, site);
+            }
+            site.observations++;
+
+            if (site.sectors.contains(sector)) {
+                return;
+            }
+
+            boolean established = site.observations > MIN_SITE_OBSERVATIONS &&
+                cellData.timestamp - site.firstSeen >= MIN_SITE_AGE_MS;
+            if (established) {
+                double score = cellData.isRegistered ? 0.7 : 0.5;
+                alerts.add(new AnomalyAlert(RULE_UNKNOWN_SECTOR, score, cellData,
+                    "New sector " + sector + " on established site " + key + " (known sectors " + site.sectors + ")"));
+            }
+            if (site.sectors.size() < MAX_SECTORS_PER_SITE) {
+                site.sectors.add(sector);
+            }
+        }
+    }
+
+    // Serving cell drops to GSM while a good LTE/NR/WCDMA serving cell was just available
+    public static class GsmDowngradeRule implements AnomalyRule {
+        private static final long DOWNGRADE_WINDOW_MS = 60 * 1000;
+        private static final int GOOD_SIGNAL_DBM = -105;
+        private static final int STRONG_SIGNAL_DBM = -95;
+
+        private static class ServingState {
+            String technology;
+            String cellId;
+            int signalStrength;
+            long timestamp;
+        }
+
+        private final Map<Integer, ServingState> lastHigherTech = new BoundedMap<>(16);
+
+        @Override
+        public String getName() {
+            return RULE_GSM_DOWNGRADE;
+        }
+
+        @Override
+        public Scope getScope() {
+            return Scope.SUBSCRIPTION;
+        }
+
+        @Override
+        public void evaluate(CellData cellData, List<AnomalyAlert> alerts) {
+            if (!cellData.isRegistered || cellData.technology == null) {
+                return;
+            }
+
+            if (!"GSM".equals(cellData.technology)) {
+                ServingState state = lastHigherTech.get(cellData.subscriptionId);
+                if (state == null) {
+                    state = new ServingState();
+                    lastHigherTech.put(cellData.subscriptionId, state);
+                }
+                state.technology = cellData.technology;
+                state.cellId = cellData.cellId;
+                state.signalStrength = cellData.signalStrength;
+                state.timestamp = cellData.timestamp;
+                return;
+            }
+
+            ServingState state = lastHigherTech.remove(cellData.subscriptionId);
+            if (state == null || cellData.timestamp - state.timestamp > DOWNGRADE_WINDOW_MS ||
+                    !CoverageGrid.isValidSignal(state.signalStrength) || state.signalStrength < GOOD_SIGNAL_DBM) {
+                return;
+            }
+
+            double score = state.signalStrength >= STRONG_SIGNAL_DBM ? 0.9 : 0.75;
+            alerts.add(new AnomalyAlert(RULE_GSM_DOWNGRADE, score, cellData,
+                "Forced to GSM " + (cellData.timestamp - state.timestamp) / 1000 + " s after " + state.technology +
+                " cell " + state.cellId + " at " + state.signalStrength + " dBm"));
+        }
+    }
+
+    // Timing advance outside the technology's range or jumping away from the cell's recent median
+    public static class TimingAdvanceRule implements AnomalyRule {
+        private static final int WINDOW_SIZE = 16;
+        private static final int MIN_WINDOW_SAMPLES = 8;
+        private static final int LTE_MAX_TA = 1282;
+        private static final int GSM_MAX_TA = 219;
+        // Roughly 3 km of apparent distance change for either technology
+        private static final int LTE_JUMP_THRESHOLD = 40;
+        private static final int GSM_JUMP_THRESHOLD = 6;
+
+        private static class Window {
+            final int[] values = new int[WINDOW_SIZE];
+            int count;
+            int next;
+
+            void add(int value) {
+                values[next] = value;
+                next = (next + 1) % WINDOW_SIZE;
+                count = Math.min(count + 1, WINDOW_SIZE);
+            }
+
+            int median() {
+                int[] sorted = Arrays.copyOf(values, count);
+                Arrays.sort(sorted);
+                return sorted[count / 2];
+            }
+        }
+
+        private final Map<String, Window> windows = new BoundedMap<>(MAX_TRACKED_CELLS);
+
+        @Override
+        public String getName() {
+            return RULE_TIMING_ADVANCE;
+        }
+
+        @Override
+        public Scope getScope() {
+            return Scope.SITE;
+        }
+
+        @Override
+        public void evaluate(CellData cellData, List<AnomalyAlert> alerts) {
+            int maxTa;
+            int jumpThreshold;
+            if ("LTE".equals(cellData.technology)) {
+                maxTa = LTE_MAX_TA;
+                jumpThreshold = LTE_JUMP_THRESHOLD;
+            } else if ("GSM".equals(cellData.technology)) {
+                maxTa = GSM_MAX_TA;
+                jumpThreshold = GSM_JUMP_THRESHOLD;
+            } else {
+                return;
+            }
+
+            int ta = cellData.timingAdvance;
+            if (ta < 0 || ta == Integer.MAX_VALUE) {
+                return;
+            }
+            if (ta > maxTa) {
+                alerts.add(new AnomalyAlert(RULE_TIMING_ADVANCE, 0.6, cellData,
+                    "Timing advance " + ta + " outside valid range 0-" + maxTa));
+                return;
+            }
+
+            String key = identityKey(cellData);
+            Window window = windows.get(key);
+            if (window == null) {
+                window = new Window();
+                windows.put(key, window);
+            }
+
+            if (window.count >= MIN_WINDOW_SAMPLES) {
+                int median = window.median();
+                int jump = Math.abs(ta - median);
+                if (jump > jumpThreshold) {
+                    double score = Math.min(0.9, 0.4 + 0.1 * jump / jumpThreshold);
+                    alerts.add(new AnomalyAlert(RULE_TIMING_ADVANCE, score, cellData,
+                        "Timing advance " + ta + " deviates from recent median " + median));
+                }
+            }
+            window.add(ta);
+        }
+    }
+
+    // The same cell identity observed far away from where it has been seen before
+    public static class CellTeleportRule implements AnomalyRule {
+        private static final double MAX_DISTANCE_M = 30000;
+        private static final float MAX_ACCURACY_M = 1000;
+        private static final int MIN_FIXES = 3;
+        private static final int MAX_CENTROID_WEIGHT = 50;
+
+        private static class Centroid {
+            double latitude;
+            double longitude;
+            int fixes;
+        }
+
+        private final Map<String, Centroid> centroids = new BoundedMap<>(MAX_TRACKED_CELLS);
+
+        @Override
+        public String getName() {
+            return RULE_CELL_TELEPORT;
+        }
+
+        @Override
+        public Scope getScope() {
+            return Scope.SITE;
+        }
+
+        @Override
+        public void evaluate(CellData cellData, List<AnomalyAlert> alerts) {
+            if (!cellData.hasLocation() || cellData.accuracy > MAX_ACCURACY_M || cellData.getCellIdentity() < 0) {
+                return;
+            }
+
+            String key = identityKey(cellData);
+            Centroid centroid = centroids.get(key);
+            if (centroid == null) {
+                centroid = new Centroid();
+                centroid.latitude = cellData.latitude;
+                centroid.longitude = cellData.longitude;
+                centroid.fixes = 1;
+                centroids.put(key, centroid);
+                return;
+            }
+
+            double distance = distanceMeters(centroid.latitude, centroid.longitude,
+                cellData.latitude, cellData.longitude);
+            if (centroid.fixes >= MIN_FIXES && distance > MAX_DISTANCE_M) {
+                double score = Math.min(1.0, 0.5 + (distance - MAX_DISTANCE_M) / 200000.0);
+                alerts.add(new AnomalyAlert(RULE_CELL_TELEPORT, score, cellData,
+                    String.format(Locale.US, "Seen %.1f km from its usual position (%.5f, %.5f)",
+                        distance / 1000.0, centroid.latitude, centroid.longitude)));
+                // Outliers are not folded into the centroid
+                return;
+            }
+
+            // Capped running mean: recent fixes keep some weight without storing history
+            int weight = Math.min(centroid.fixes, MAX_CENTROID_WEIGHT);
+            centroid.latitude += (cellData.latitude - centroid.latitude) / (weight + 1);
+            centroid.longitude += (cellData.longitude - centroid.longitude) / (weight + 1);
+            centroid.fixes++;
+        }
+    }
+}
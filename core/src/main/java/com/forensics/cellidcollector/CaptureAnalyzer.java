@@ -0,0 +1,77 @@
+package com.forensics.cellidcollector;
+
+import java.util.List;
+
+// Runs summaries and timelines over a store with one parallel-stream task per time partition.
+// Each partition scans its own slice through the store's connection pool and the partial
+// results are merged at the end, so large databases use every core.
+public class CaptureAnalyzer {
+    public static final long DEFAULT_PARTITION_ALIGN_MS = 60 * 60 * 1000L;
+    private static final int COLUMN_PAGE_SIZE = 4096;
+
+    private final CellDataStore store;
+    private final int maxPartitions;
+
+    public CaptureAnalyzer(CellDataStore store, int maxPartitions) {
+        this.store = store;
+        this.maxPartitions = Math.max(1, maxPartitions);
+    }
+
+    public CaptureAnalyzer(CellDataStore store) {
+        this(store, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public CaptureSummary summarize(long fromTimestamp, long toTimestamp) {
+        return partitions(fromTimestamp, toTimestamp, DEFAULT_PARTITION_ALIGN_MS).parallelStream()
+            .map(partition -> {
+                CaptureSummary summary = new CaptureSummary();
+                store.scanObservations(partition.fromTimestamp, partition.toTimestamp, false, cellData -> {
+                    summary.accept(cellData);
+                    return true;
+                });
+                return summary;
+            })
+            .reduce(CaptureSummary::merge)
+            .orElseGet(CaptureSummary::new);
+    }
+
+    public CaptureTimeline timeline(long fromTimestamp, long toTimestamp, long bucketMs) {
+        return partitions(fromTimestamp, toTimestamp, bucketMs).parallelStream()
+            .map(partition -> {
+                CaptureTimeline timeline = new CaptureTimeline(bucketMs);
+                store.scanObservations(partition.fromTimestamp, partition.toTimestamp, false, cellData -> {
+                    timeline.accept(cellData);
+                    return true;
+                });
+                return timeline;
+            })
+            .reduce(CaptureTimeline::merge)
+            .orElseGet(() -> new CaptureTimeline(bucketMs));
+    }
+
+    public SignalProfile signalProfile(long fromTimestamp, long toTimestamp, long bucketMs) {
+        return partitions(fromTimestamp, toTimestamp, bucketMs).parallelStream()
+            .map(partition -> {
+                SignalProfile profile = new SignalProfile(bucketMs);
+                store.scanObservationColumns(partition.fromTimestamp, partition.toTimestamp,
+                    new ObservationColumns(COLUMN_PAGE_SIZE), page -> {
+                        profile.accept(page);
+                        return true;
+                    });
+                return profile;
+            })
+            .reduce(SignalProfile::merge)
+            .orElseGet(() -> new SignalProfile(bucketMs));
+    }
+
+    // Clamps the requested window to the data actually in the store before splitting it
+    private List<TimePartition> partitions(long fromTimestamp, long toTimestamp, long alignMs) {
+        long first = store.getFirstTimestamp();
+        long last = store.getLastTimestamp();
+        if (first < 0) {
+            return TimePartition.split(0, -1, alignMs, maxPartitions);
+        }
+        return TimePartition.split(Math.max(fromTimestamp, first), Math.min(toTimestamp, last), alignMs,
+            maxPartitions);
+    }
+}
@@ -0,0 +1,112 @@
+package com.forensics.cellidcollector;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Counters for one partition of a capture; partial summaries are merged after a parallel scan
+public class CaptureSummary {
+    public long observations;
+    public long registered;
+    public long withLocation;
+    public long firstTimestamp = Long.MAX_VALUE;
+    public long lastTimestamp = Long.MIN_VALUE;
+    public long signalCount;
+    public long signalSum;
+    public int bestSignal = Integer.MIN_VALUE;
+    public final Map<String, Long> byTechnology = new TreeMap<>();
+    public final Map<String, Long> byProvider = new HashMap<>();
+    public final Set<String> mccs = new LinkedHashSet<>();
+    public final Set<String> cells = new HashSet<>();
+    public final Set<String> servingCells = new HashSet<>();
+
+    public void accept(CellData cellData) {
+        observations++;
+        firstTimestamp = Math.min(firstTimestamp, cellData.timestamp);
+        lastTimestamp = Math.max(lastTimestamp, cellData.timestamp);
+        if (cellData.hasLocation()) {
+            withLocation++;
+        }
+        if (CoverageGrid.isValidSignal(cellData.signalStrength)) {
+            signalCount++;
+            signalSum += cellData.signalStrength;
+            bestSignal = Math.max(bestSignal, cellData.signalStrength);
+        }
+
+        byTechnology.merge(String.valueOf(cellData.technology), 1L, Long::sum);
+        byProvider.merge(ProviderHelper.providerOf(cellData), 1L, Long::sum);
+        if (cellData.mcc != null) {
+            mccs.add(cellData.mcc);
+        }
+
+        String cellKey = CoverageTile.cellGroupKey(cellData);
+        cells.add(cellKey);
+        if (cellData.isRegistered) {
+            registered++;
+            servingCells.add(cellKey);
+        }
+    }
+
+    public CaptureSummary merge(CaptureSummary other) {
+        observations += other.observations;
+        registered += other.registered;
+        withLocation += other.withLocation;
+        firstTimestamp = Math.min(firstTimestamp, other.firstTimestamp);
+        lastTimestamp = Math.max(lastTimestamp, other.lastTimestamp);
+        signalCount += other.signalCount;
+        signalSum += other.signalSum;
+        bestSignal = Math.max(bestSignal, other.bestSignal);
+        other.byTechnology.forEach((key, count) -> byTechnology.merge(key, count, Long::sum));
+        other.byProvider.forEach((key, count) -> byProvider.merge(key, count, Long::sum));
+        mccs.addAll(other.mccs);
+        cells.addAll(other.cells);
+        servingCells.addAll(other.servingCells);
+        return this;
+    }
+
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        if (observations == 0) {
+            return "No observations\n";
+        }
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        report.append("Period: ").append(dateFormat.format(new Date(firstTimestamp)))
+            .append(" - ").append(dateFormat.format(new Date(lastTimestamp))).append('\n');
+        report.append("Observations: ").append(observations)
+            .append(" (registered ").append(registered)
+            .append(", with location ").append(withLocation).append(")\n");
+        report.append("Distinct cells: ").append(cells.size())
+            .append(" (serving ").append(servingCells.size()).append(")\n");
+        if (signalCount > 0) {
+            report.append("Signal: mean ").append(signalSum / signalCount)
+                .append(" dBm, best ").append(bestSignal).append(" dBm\n");
+        }
+
+        report.append("\nBy technology\n");
+        for (Map.Entry<String, Long> entry : byTechnology.entrySet()) {
+            report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+
+        report.append("\nBy provider\n");
+        for (String line : ProviderHelper.formatProviderSummary(byProvider, observations).split("\n")) {
+            if (!line.startsWith("Total")) {
+                report.append("  ").append(line).append('\n');
+            }
+        }
+
+        List<String> missing = ProviderHelper.getMissingProviders(mccs, new ArrayList<>(byProvider.keySet()));
+        if (!missing.isEmpty()) {
+            report.append("Missing providers: ").append(missing).append('\n');
+        }
+        return report.toString();
+    }
+}
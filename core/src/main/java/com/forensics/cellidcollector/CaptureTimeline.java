@@ -0,0 +1,86 @@
+package com.forensics.cellidcollector;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Per-bucket activity over time. Buckets are aligned to bucketMs so timelines built over
+// aligned partitions merge without overlap.
+public class CaptureTimeline {
+    public static class Bucket {
+        public long observations;
+        public long registered;
+        public long signalCount;
+        public long signalSum;
+        public final Set<String> cells = new HashSet<>();
+        public final Set<String> servingCells = new HashSet<>();
+        public final Set<String> technologies = new HashSet<>();
+    }
+
+    public final long bucketMs;
+    public final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+
+    public CaptureTimeline(long bucketMs) {
+        this.bucketMs = bucketMs;
+    }
+
+    public void accept(CellData cellData) {
+        long start = Math.floorDiv(cellData.timestamp, bucketMs) * bucketMs;
+        Bucket bucket = buckets.get(start);
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets.put(start, bucket);
+        }
+
+        bucket.observations++;
+        String cellKey = CoverageTile.cellGroupKey(cellData);
+        bucket.cells.add(cellKey);
+        bucket.technologies.add(String.valueOf(cellData.technology));
+        if (cellData.isRegistered) {
+            bucket.registered++;
+            bucket.servingCells.add(cellKey);
+        }
+        if (CoverageGrid.isValidSignal(cellData.signalStrength)) {
+            bucket.signalCount++;
+            bucket.signalSum += cellData.signalStrength;
+        }
+    }
+
+    public CaptureTimeline merge(CaptureTimeline other) {
+        for (Map.Entry<Long, Bucket> entry : other.buckets.entrySet()) {
+            Bucket bucket = buckets.get(entry.getKey());
+            if (bucket == null) {
+                buckets.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            Bucket source = entry.getValue();
+            bucket.observations += source.observations;
+            bucket.registered += source.registered;
+            bucket.signalCount += source.signalCount;
+            bucket.signalSum += source.signalSum;
+            bucket.cells.addAll(source.cells);
+            bucket.servingCells.addAll(source.servingCells);
+            bucket.technologies.addAll(source.technologies);
+        }
+        return this;
+    }
+
+    public String format() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.US);
+        StringBuilder report = new StringBuilder();
+        report.append("Start             Observations  Cells  Serving  Mean dBm  Technologies\n");
+        for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            String meanSignal = bucket.signalCount > 0 ? String.valueOf(bucket.signalSum / bucket.signalCount) : "-";
+            report.append(String.format(Locale.US, "%-16s  %12d  %5d  %7d  %8s  %s%n",
+                dateFormat.format(new Date(entry.getKey())), bucket.observations, bucket.cells.size(),
+                bucket.servingCells.size(), meanSignal, new TreeSet<>(bucket.technologies)));
+        }
+        return report.toString();
+    }
+}
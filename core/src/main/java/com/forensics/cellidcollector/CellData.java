@@ -0,0 +1,128 @@
+package com.forensics.cellidcollector;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+public class CellData {
+    public static final int UNKNOWN_SUBSCRIPTION = -1;
+    public static final int UNKNOWN_SLOT = -1;
+
+    public static final int REFERENCE_UNCHECKED = -1;
+    public static final int REFERENCE_NOT_FOUND = 0;
+    public static final int REFERENCE_FOUND = 1;
+
+    public long id;
+    public long timestamp;
+    public String technology;
+    public String cellId;
+    public String lac;
+    public String mcc;
+    public String mnc;
+    public String provider;
+    public int signalStrength;
+    public boolean isRegistered;
+    public double latitude;
+    public double longitude;
+    public float accuracy;
+    public int pci = -1;
+    public int psc = -1;
+    public int bsic = -1;
+    public int earfcn = -1;
+    public int uarfcn = -1;
+    public int arfcn = -1;
+    public int nrarfcn = -1;
+    public int timingAdvance = -1;
+    public int subscriptionId = UNKNOWN_SUBSCRIPTION;
+    public int simSlot = UNKNOWN_SLOT;
+    public int referenceStatus = REFERENCE_UNCHECKED;
+    public double referenceLatitude;
+    public double referenceLongitude;
+    public int referenceRange = -1;
+    public String additionalInfo;
+
+    public boolean hasLocation() {
+        return latitude != 0 || longitude != 0;
+    }
+
+    // Numeric cell identity (CI, CID or NCI), or -1 when missing or reported as unavailable
+    public long getCellIdentity() {
+        if (cellId == null) {
+            return -1;
+        }
+        try {
+            long value = Long.parseLong(cellId);
+            return isUnavailable(value) ? -1 : value;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // CellInfo.UNAVAILABLE for CI/CID, Long.MAX_VALUE for NCI
+    private static boolean isUnavailable(long identity) {
+        return identity < 0 || identity == Integer.MAX_VALUE || identity == Long.MAX_VALUE;
+    }
+
+    // eNodeB (CI >> 8) for LTE and gNodeB (NCI >> 12) for NR; -1 for technologies without sectors
+    public static long siteIdOf(String technology, long identity) {
+        if (isUnavailable(identity)) {
+            return -1;
+        } else if ("LTE".equals(technology)) {
+            return identity >> 8;
+        } else if ("NR".equals(technology)) {
+            return identity >> 12;
+        }
+        return -1;
+    }
+
+    public static int sectorOf(String technology, long identity) {
+        if (isUnavailable(identity)) {
+            return -1;
+        } else if ("LTE".equals(technology)) {
+            return (int) (identity & 0xFF);
+        } else if ("NR".equals(technology)) {
+            return (int) (identity & 0xFFF);
+        }
+        return -1;
+    }
+
+    public long getSiteId() {
+        return siteIdOf(technology, getCellIdentity());
+    }
+
+    public int getSector() {
+        return sectorOf(technology, getCellIdentity());
+    }
+
+    // EARFCN for LTE, NRARFCN for NR
+    public int getSiteCarrier() {
+        return "NR".equals(technology) ? nrarfcn : earfcn;
+    }
+
+    public String toCsvString() {
+        String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date(timestamp));
+        String location = hasLocation() ? latitude + " " + longitude : "";
+
+        return time + "," +
+            csvField(provider) + "," +
+            csvField(technology) + "," +
+            csvField(cellId) + "," +
+            csvField(lac) + "," +
+            signalStrength + "," +
+            csvField(mcc) + "," +
+            csvField(mnc) + "," +
+            location + "," +
+            isRegistered + "," +
+            csvField(additionalInfo);
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,25 @@
+package com.forensics.cellidcollector;
+
+import java.io.Closeable;
+
+// Read access to a capture database, implemented by the Android helper on device and by
+// JdbcCellDataStore on workstations. Scans must be safe to run from several threads at once.
+public interface CellDataStore extends ObservationSource, Closeable {
+    int getTotalCellCount();
+
+    // Oldest and newest observation timestamps, or -1 when the store is empty
+    long getFirstTimestamp();
+
+    long getLastTimestamp();
+
+    // Streams up to limit observations with _id > afterId in id order; a failed read throws
+    // IllegalStateException rather than ending the scan early
+    void scanObservationsAfterId(long afterId, int limit, CellDataVisitor visitor);
+
+    // Streams the same window as scanObservations into primitive columns, refilling page
+    void scanObservationColumns(long fromTimestamp, long toTimestamp, ObservationColumns page,
+                                ObservationColumns.Visitor visitor);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,6 @@
+package com.forensics.cellidcollector;
+
+public interface CellDataVisitor {
+    // Return false to stop the scan
+    boolean visit(CellData cellData);
+}
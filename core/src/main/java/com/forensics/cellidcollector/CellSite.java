@@ -0,0 +1,171 @@
+package com.forensics.cellidcollector;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+// One eNodeB (LTE) or gNodeB (NR) and everything observed under it: its sectors, carriers and
+// PCIs, and a position estimated from the fixes its cells were seen at
+public class CellSite {
+    // Weights for the position estimate are relative amplitudes, so a fix 20 dB stronger pulls the
+    // estimate ten times harder; fixes without a usable signal count as this floor
+    private static final int WEIGHT_FLOOR_DBM = -140;
+
+    public String technology;
+    public String mcc;
+    public String mnc;
+    public long siteId;
+    public final TreeSet<Integer> sectors = new TreeSet<>();
+    public final TreeSet<Integer> carriers = new TreeSet<>();
+    public final TreeSet<Integer> pcis = new TreeSet<>();
+    public long sampleCount;
+    public long fixCount;
+    public double weightSum;
+    public double latitudeSum;
+    public double longitudeSum;
+    public int bestSignal = Integer.MIN_VALUE;
+    public long firstSeen = Long.MAX_VALUE;
+    public long lastSeen;
+
+    public static String key(String technology, String mcc, String mnc, long siteId) {
+        return technology + ":" + mcc + ":" + mnc + ":" + siteId;
+    }
+
+    public String getKey() {
+        return key(technology, mcc, mnc, siteId);
+    }
+
+    public boolean hasPosition() {
+        return weightSum > 0;
+    }
+
+    public double getLatitude() {
+        return weightSum > 0 ? latitudeSum / weightSum : 0;
+    }
+
+    public double getLongitude() {
+        return weightSum > 0 ? longitudeSum / weightSum : 0;
+    }
+
+    public boolean hasSignal() {
+        return bestSignal != Integer.MIN_VALUE;
+    }
+
+    void add(CellData cellData) {
+        sampleCount++;
+        sectors.add(cellData.getSector());
+        int carrier = cellData.getSiteCarrier();
+        if (carrier >= 0) {
+            carriers.add(carrier);
+        }
+        if (cellData.pci >= 0) {
+            pcis.add(cellData.pci);
+        }
+        boolean validSignal = CoverageGrid.isValidSignal(cellData.signalStrength);
+        if (validSignal) {
+            bestSignal = Math.max(bestSignal, cellData.signalStrength);
+        }
+        if (cellData.hasLocation()) {
+            double weight = Math.pow(10, (validSignal ? cellData.signalStrength : WEIGHT_FLOOR_DBM) / 20.0);
+            fixCount++;
+            weightSum += weight;
+            latitudeSum += cellData.latitude * weight;
+            longitudeSum += cellData.longitude * weight;
+        }
+        firstSeen = Math.min(firstSeen, cellData.timestamp);
+        lastSeen = Math.max(lastSeen, cellData.timestamp);
+    }
+
+    // Folds another aggregate of the same site into this one
+    public void merge(CellSite other) {
+        sectors.addAll(other.sectors);
+        carriers.addAll(other.carriers);
+        pcis.addAll(other.pcis);
+        sampleCount += other.sampleCount;
+        fixCount += other.fixCount;
+        weightSum += other.weightSum;
+        latitudeSum += other.latitudeSum;
+        longitudeSum += other.longitudeSum;
+        bestSignal = Math.max(bestSignal, other.bestSignal);
+        firstSeen = Math.min(firstSeen, other.firstSeen);
+        lastSeen = Math.max(lastSeen, other.lastSeen);
+    }
+
+    // Sets are stored as comma-separated ascending lists
+    public static String joinList(Collection<Integer> values) {
+        StringBuilder list = new StringBuilder();
+        for (int value : values) {
+            if (list.length() > 0) {
+                list.append(',');
+            }
+            list.append(value);
+        }
+        return list.toString();
+    }
+
+    public static void parseList(String list, Collection<Integer> values) {
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        for (String value : list.split(",")) {
+            try {
+                values.add(Integer.parseInt(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // Skip entries that were not written by joinList
+            }
+        }
+    }
+
+    // Per-sector view of a site, read back from the observations themselves
+    public static class Sector {
+        public int sector;
+        public String cellId;
+        public long sampleCount;
+        public int bestSignal = Integer.MIN_VALUE;
+        public long firstSeen;
+        public long lastSeen;
+        public final TreeSet<Integer> carriers = new TreeSet<>();
+        public final TreeSet<Integer> pcis = new TreeSet<>();
+
+        public boolean hasSignal() {
+            return bestSignal != Integer.MIN_VALUE;
+        }
+    }
+
+    // Folds observations into per-site deltas so a batch touches each site row once. Only LTE and
+    // NR cells with a known operator have a site; everything else is skipped.
+    public static class Accumulator {
+        private final Map<String, CellSite> sites = new LinkedHashMap<>();
+
+        public void add(CellData cellData) {
+            long siteId = cellData.getSiteId();
+            if (siteId < 0 || cellData.mcc == null || cellData.mnc == null) {
+                return;
+            }
+            String key = key(cellData.technology, cellData.mcc, cellData.mnc, siteId);
+            CellSite site = sites.get(key);
+            if (site == null) {
+                site = new CellSite();
+                site.technology = cellData.technology;
+                site.mcc = cellData.mcc;
+                site.mnc = cellData.mnc;
+                site.siteId = siteId;
+                sites.put(key, site);
+            }
+            site.add(cellData);
+        }
+
+        public Collection<CellSite> getSites() {
+            return sites.values();
+        }
+
+        public boolean isEmpty() {
+            return sites.isEmpty();
+        }
+
+        public void clear() {
+            sites.clear();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.forensics.cellidcollector;
+
+// Web-Mercator (slippy map) tiling shared by the tile writer, rebuild job and tile queries
+public final class CoverageGrid {
+    public static final int[] ZOOM_LEVELS = {10, 13, 16};
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private CoverageGrid() {}
+
+    public static int tileX(double longitude, int zoom) {
+        int n = 1 << zoom;
+        int x = (int) Math.floor((longitude + 180.0) / 360.0 * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    public static int tileY(double latitude, int zoom) {
+        int n = 1 << zoom;
+        double lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(lat) + 1.0 / Math.cos(lat)) / Math.PI) / 2.0 * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    public static String quadKey(int tileX, int tileY, int zoom) {
+        char[] key = new char[zoom];
+        for (int i = zoom; i > 0; i--) {
+            int mask = 1 << (i - 1);
+            int digit = 0;
+            if ((tileX & mask) != 0) digit += 1;
+            if ((tileY & mask) != 0) digit += 2;
+            key[zoom - i] = (char) ('0' + digit);
+        }
+        return new String(key);
+    }
+
+    public static double tileLongitude(int tileX, int zoom) {
+        return tileX / (double) (1 << zoom) * 360.0 - 180.0;
+    }
+
+    public static double tileLatitude(int tileY, int zoom) {
+        double n = Math.PI - 2.0 * Math.PI * tileY / (double) (1 << zoom);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    // Snaps an arbitrary map zoom to the closest level the grid is actually stored at
+    public static int nearestZoomLevel(int zoom) {
+        int best = ZOOM_LEVELS[0];
+        for (int level : ZOOM_LEVELS) {
+            if (Math.abs(level - zoom) < Math.abs(best - zoom)) {
+                best = level;
+            }
+        }
+        return best;
+    }
+
+    public static boolean isValidSignal(int signalStrength) {
+        // CellInfo.UNAVAILABLE is Integer.MAX_VALUE; anything outside a plausible dBm range is noise
+        return signalStrength < 0 && signalStrength > -200;
+    }
+}
@@ -0,0 +1,115 @@
+package com.forensics.cellidcollector;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class CoverageTile {
+    public static final String GROUP_CELL = "cell";
+    public static final String GROUP_OPERATOR = "operator";
+
+    public int zoom;
+    public int tileX;
+    public int tileY;
+    public String quadKey;
+    public String groupType;
+    public String groupKey;
+    public String technology;
+    public String mcc;
+    public String mnc;
+    public long sampleCount;
+    public long signalCount;
+    public long signalSum;
+    public int bestSignal = Integer.MIN_VALUE;
+    public long lastSeen;
+
+    public boolean hasSignal() {
+        return signalCount > 0;
+    }
+
+    public double getMeanSignal() {
+        return signalCount > 0 ? (double) signalSum / signalCount : Double.NaN;
+    }
+
+    public double getNorthLatitude() {
+        return CoverageGrid.tileLatitude(tileY, zoom);
+    }
+
+    public double getSouthLatitude() {
+        return CoverageGrid.tileLatitude(tileY + 1, zoom);
+    }
+
+    public double getWestLongitude() {
+        return CoverageGrid.tileLongitude(tileX, zoom);
+    }
+
+    public double getEastLongitude() {
+        return CoverageGrid.tileLongitude(tileX + 1, zoom);
+    }
+
+    void add(CellData cellData) {
+        sampleCount++;
+        if (CoverageGrid.isValidSignal(cellData.signalStrength)) {
+            signalCount++;
+            signalSum += cellData.signalStrength;
+            bestSignal = Math.max(bestSignal, cellData.signalStrength);
+        }
+        lastSeen = Math.max(lastSeen, cellData.timestamp);
+    }
+
+    public static String cellGroupKey(CellData cellData) {
+        return cellData.technology + ":" + cellData.mcc + ":" + cellData.mnc + ":" + cellData.lac + ":" + cellData.cellId;
+    }
+
+    public static String operatorGroupKey(CellData cellData) {
+        return cellData.mcc + ":" + cellData.mnc;
+    }
+
+    // Folds observations into per-tile deltas so a batch touches each tile row once
+    public static class Accumulator {
+        private final Map<String, CoverageTile> tiles = new LinkedHashMap<>();
+
+        public void add(CellData cellData) {
+            if (!cellData.hasLocation()) {
+                return;
+            }
+            for (int zoom : CoverageGrid.ZOOM_LEVELS) {
+                int x = CoverageGrid.tileX(cellData.longitude, zoom);
+                int y = CoverageGrid.tileY(cellData.latitude, zoom);
+                tile(zoom, x, y, GROUP_CELL, cellGroupKey(cellData), cellData).add(cellData);
+                tile(zoom, x, y, GROUP_OPERATOR, operatorGroupKey(cellData), cellData).add(cellData);
+            }
+        }
+
+        private CoverageTile tile(int zoom, int x, int y, String groupType, String groupKey, CellData cellData) {
+            String key = zoom + "/" + x + "/" + y + "/" + groupType + "/" + groupKey;
+            CoverageTile tile = tiles.get(key);
+            if (tile == null) {
+                tile = new CoverageTile();
+                tile.zoom = zoom;
+                tile.tileX = x;
+                tile.tileY = y;
+                tile.quadKey = CoverageGrid.quadKey(x, y, zoom);
+                tile.groupType = groupType;
+                tile.groupKey = groupKey;
+                tile.technology = GROUP_CELL.equals(groupType) ? cellData.technology : null;
+                tile.mcc = cellData.mcc;
+                tile.mnc = cellData.mnc;
+                tiles.put(key, tile);
+            }
+            return tile;
+        }
+
+        public Collection<CoverageTile> getTiles() {
+            return tiles.values();
+        }
+
+        public boolean isEmpty() {
+            return tiles.isEmpty();
+        }
+
+        public void clear() {
+            tiles.clear();
+        }
+    }
+}
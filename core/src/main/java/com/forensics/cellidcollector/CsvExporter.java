@@ -0,0 +1,38 @@
+package com.forensics.cellidcollector;
+
+import java.io.IOException;
+import java.io.Writer;
+
+public final class CsvExporter {
+    public static final String HEADER =
+        "Timestamp,Provider,Technology,Cell_ID,LAC_TAC,Signal_Strength,MCC,MNC,Location,Registered,Additional_Info\n";
+
+    private CsvExporter() {}
+
+    // Streams one row per observation in the window; returns the number of rows written
+    public static int export(ObservationSource source, long fromTimestamp, long toTimestamp, Writer out)
+            throws IOException {
+        out.write(HEADER);
+        IOException[] failure = new IOException[1];
+        int[] rows = new int[1];
+        source.scanObservations(fromTimestamp, toTimestamp, false, cellData -> {
+            try {
+                if (cellData.provider == null) {
+                    ProviderHelper.enrichCellDataWithProvider(cellData);
+                }
+                out.write(cellData.toCsvString());
+                out.write('\n');
+                rows[0]++;
+                return true;
+            } catch (IOException e) {
+                failure[0] = e;
+                return false;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        out.flush();
+        return rows[0];
+    }
+}
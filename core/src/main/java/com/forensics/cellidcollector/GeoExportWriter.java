@@ -0,0 +1,255 @@
+package com.forensics.cellidcollector;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// Writes sighting points and one route line straight to a Writer, so nothing but the current
+// feature is ever held in memory
+public abstract class GeoExportWriter {
+    public enum Format {
+        GEOJSON("geojson"),
+        KML("kml");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    protected final Writer out;
+    protected final StringBuilder line = new StringBuilder(256);
+    private final SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+
+    protected GeoExportWriter(Writer out) {
+        this.out = out;
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    public static GeoExportWriter create(Format format, Writer out) {
+        return format == Format.KML ? new Kml(out) : new GeoJson(out);
+    }
+
+    public abstract void begin() throws IOException;
+
+    public abstract void writeSighting(CellData cellData) throws IOException;
+
+    public abstract void beginRoute() throws IOException;
+
+    public abstract void writeRoutePoint(double latitude, double longitude, long timestamp) throws IOException;
+
+    public abstract void endRoute(long startTimestamp, long endTimestamp) throws IOException;
+
+    public abstract void end() throws IOException;
+
+    protected String isoTime(long timestamp) {
+        return isoFormat.format(new Date(timestamp));
+    }
+
+    protected static String sightingName(CellData cellData) {
+        return cellData.technology + " " + cellData.mcc + "-" + cellData.mnc + " " + cellData.lac + "/" + cellData.cellId;
+    }
+
+    // Fixed six decimals (~0.1 m) without String.format, which dominates export time on large captures
+    protected static void appendCoordinate(StringBuilder sb, double value) {
+        long scaled = Math.round(value * 1e6);
+        if (scaled < 0) {
+            sb.append('-');
+            scaled = -scaled;
+        }
+        sb.append(scaled / 1000000).append('.');
+        String fraction = Long.toString(scaled % 1000000);
+        for (int i = fraction.length(); i < 6; i++) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+
+    protected void flushLine() throws IOException {
+        out.append(line);
+        line.setLength(0);
+    }
+
+    static class GeoJson extends GeoExportWriter {
+        private boolean firstFeature = true;
+        private boolean firstRoutePoint = true;
+
+        GeoJson(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void begin() throws IOException {
+            out.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+        }
+
+        @Override
+        public void writeSighting(CellData cellData) throws IOException {
+            beginFeature();
+            line.append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[");
+            appendCoordinate(line, cellData.longitude);
+            line.append(',');
+            appendCoordinate(line, cellData.latitude);
+            line.append("]},\"properties\":{\"kind\":\"sighting\"");
+            appendProperty("time", isoTime(cellData.timestamp));
+            appendProperty("technology", cellData.technology);
+            appendProperty("mcc", cellData.mcc);
+            appendProperty("mnc", cellData.mnc);
+            appendProperty("lac", cellData.lac);
+            appendProperty("cellId", cellData.cellId);
+            appendProperty("provider", cellData.provider);
+            line.append(",\"signal\":").append(cellData.signalStrength);
+            line.append(",\"registered\":").append(cellData.isRegistered);
+            if (cellData.pci >= 0) {
+                line.append(",\"pci\":").append(cellData.pci);
+            }
+            if (cellData.simSlot != CellData.UNKNOWN_SLOT) {
+                line.append(",\"simSlot\":").append(cellData.simSlot);
+            }
+            line.append("}}");
+            flushLine();
+        }
+
+        @Override
+        public void beginRoute() throws IOException {
+            beginFeature();
+            firstRoutePoint = true;
+            out.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[");
+        }
+
+        @Override
+        public void writeRoutePoint(double latitude, double longitude, long timestamp) throws IOException {
+            if (!firstRoutePoint) {
+                line.append(',');
+            }
+            firstRoutePoint = false;
+            line.append('[');
+            appendCoordinate(line, longitude);
+            line.append(',');
+            appendCoordinate(line, latitude);
+            line.append(']');
+            flushLine();
+        }
+
+        @Override
+        public void endRoute(long startTimestamp, long endTimestamp) throws IOException {
+            line.append("]},\"properties\":{\"kind\":\"route\"");
+            appendProperty("start", isoTime(startTimestamp));
+            appendProperty("end", isoTime(endTimestamp));
+            line.append("}}");
+            flushLine();
+        }
+
+        @Override
+        public void end() throws IOException {
+            out.write("\n]}\n");
+        }
+
+        private void beginFeature() throws IOException {
+            if (!firstFeature) {
+                out.write(",\n");
+            }
+            firstFeature = false;
+        }
+
+        private void appendProperty(String name, String value) {
+            line.append(",\"").append(name).append("\":");
+            JsonStrings.append(line, value);
+        }
+    }
+
+    static class Kml extends GeoExportWriter {
+        private boolean sightingsOpen = false;
+
+        Kml(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void begin() throws IOException {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n<Document>\n");
+            out.write("<name>CellID Forensics export</name>\n<Folder>\n<name>Sightings</name>\n");
+            sightingsOpen = true;
+        }
+
+        @Override
+        public void writeSighting(CellData cellData) throws IOException {
+            line.append("<Placemark><name>");
+            appendEscaped(sightingName(cellData));
+            line.append("</name><TimeStamp><when>").append(isoTime(cellData.timestamp)).append("</when></TimeStamp>");
+            line.append("<description>");
+            appendEscaped("Provider: " + cellData.provider + "\nSignal: " + cellData.signalStrength + " dBm" +
+                (cellData.isRegistered ? "\nRegistered" : ""));
+            line.append("</description><Point><coordinates>");
+            appendCoordinate(line, cellData.longitude);
+            line.append(',');
+            appendCoordinate(line, cellData.latitude);
+            line.append("</coordinates></Point></Placemark>\n");
+            flushLine();
+        }
+
+        @Override
+        public void beginRoute() throws IOException {
+            closeSightings();
+            out.write("<Placemark>\n<name>Device route</name>\n<LineString>\n<tessellate>1</tessellate>\n<coordinates>\n");
+        }
+
+        @Override
+        public void writeRoutePoint(double latitude, double longitude, long timestamp) throws IOException {
+            appendCoordinate(line, longitude);
+            line.append(',');
+            appendCoordinate(line, latitude);
+            line.append('\n');
+            flushLine();
+        }
+
+        @Override
+        public void endRoute(long startTimestamp, long endTimestamp) throws IOException {
+            out.write("</coordinates>\n</LineString>\n<TimeSpan><begin>");
+            out.write(isoTime(startTimestamp));
+            out.write("</begin><end>");
+            out.write(isoTime(endTimestamp));
+            out.write("</end></TimeSpan>\n</Placemark>\n");
+        }
+
+        @Override
+        public void end() throws IOException {
+            closeSightings();
+            out.write("</Document>\n</kml>\n");
+        }
+
+        private void closeSightings() throws IOException {
+            if (sightingsOpen) {
+                out.write("</Folder>\n");
+                sightingsOpen = false;
+            }
+        }
+
+        private void appendEscaped(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&':
+                        line.append("&amp;");
+                        break;
+                    case '<':
+                        line.append("&lt;");
+                        break;
+                    case '>':
+                        line.append("&gt;");
+                        break;
+                    case '"':
+                        line.append("&quot;");
+                        break;
+                    default:
+                        line.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.forensics.cellidcollector;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Streams a time window of observations into GeoJSON or KML in two cursor passes: sighting
+// points first, then the device route from the registered cells' fixes. Only a bounded
+// per-cell table and one simplification window are kept, whatever the size of the capture.
+public class GeoExporter {
+    private static final int MAX_TRACKED_CELLS = 4096;
+    // A cell seen again within this distance and time of its last point adds no new sighting
+    private static final double SIGHTING_SPACING_METERS = 100;
+    private static final long SIGHTING_GAP_MS = 15 * 60 * 1000L;
+    private static final double ROUTE_TOLERANCE_METERS = 15;
+    private static final int ROUTE_WINDOW_SIZE = 512;
+
+    public static class Result {
+        public int observations;
+        public int sightings;
+        public int routeInput;
+        public int routePoints;
+    }
+
+    private static class LastSighting {
+        double latitude;
+        double longitude;
+        long timestamp;
+    }
+
+    private final ObservationSource source;
+    private final long fromTimestamp;
+    private final long toTimestamp;
+
+    public GeoExporter(ObservationSource source, long fromTimestamp, long toTimestamp) {
+        this.source = source;
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+    }
+
+    public static GeoExporter all(ObservationSource source) {
+        return new GeoExporter(source, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public Result export(GeoExportWriter.Format format, Writer out) throws IOException {
+        GeoExportWriter writer = GeoExportWriter.create(format, out);
+        Result result = new Result();
+
+        writer.begin();
+        writeSightings(writer, result);
+        writeRoute(writer, result);
+        writer.end();
+        out.flush();
+        return result;
+    }
+
+    private void writeSightings(GeoExportWriter writer, Result result) throws IOException {
+        AnomalyRules.BoundedMap<String, LastSighting> lastSightings = new AnomalyRules.BoundedMap<>(MAX_TRACKED_CELLS);
+        IOException[] failure = new IOException[1];
+
+        source.scanObservations(fromTimestamp, toTimestamp, false, cellData -> {
+            result.observations++;
+            if (!cellData.hasLocation()) {
+                return true;
+            }
+
+            String cellKey = CoverageTile.cellGroupKey(cellData);
+            LastSighting last = lastSightings.get(cellKey);
+            if (last != null && cellData.timestamp - last.timestamp < SIGHTING_GAP_MS &&
+                    AnomalyRules.distanceMeters(last.latitude, last.longitude,
+                        cellData.latitude, cellData.longitude) < SIGHTING_SPACING_METERS) {
+                return true;
+            }
+            if (last == null) {
+                last = new LastSighting();
+                lastSightings.put(cellKey, last);
+            }
+            last.latitude = cellData.latitude;
+            last.longitude = cellData.longitude;
+            last.timestamp = cellData.timestamp;
+
+            try {
+                writer.writeSighting(cellData);
+                result.sightings++;
+                return true;
+            } catch (IOException e) {
+                failure[0] = e;
+                return false;
+            }
+        });
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private void writeRoute(GeoExportWriter writer, Result result) throws IOException {
+        IOException[] failure = new IOException[1];
+        // The first point is held back so a route with a single fix is not written as a broken line
+        double[] firstPoint = new double[2];
+        long[] timestamps = {Long.MIN_VALUE, Long.MIN_VALUE};
+        int[] written = new int[1];
+
+        TrackSimplifier simplifier = new TrackSimplifier(ROUTE_TOLERANCE_METERS, ROUTE_WINDOW_SIZE,
+            (latitude, longitude, timestamp) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    if (written[0] == 0) {
+                        firstPoint[0] = latitude;
+                        firstPoint[1] = longitude;
+                        timestamps[0] = timestamp;
+                    } else {
+                        if (written[0] == 1) {
+                            writer.beginRoute();
+                            writer.writeRoutePoint(firstPoint[0], firstPoint[1], timestamps[0]);
+                        }
+                        writer.writeRoutePoint(latitude, longitude, timestamp);
+                    }
+                    written[0]++;
+                    timestamps[1] = timestamp;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+
+        source.scanObservations(fromTimestamp, toTimestamp, true, cellData -> {
+            if (cellData.hasLocation()) {
+                simplifier.add(cellData.latitude, cellData.longitude, cellData.timestamp);
+            }
+            return failure[0] == null;
+        });
+        simplifier.finish();
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        if (written[0] > 1) {
+            writer.endRoute(timestamps[0], timestamps[1]);
+        }
+        result.routeInput = simplifier.getInputCount();
+        result.routePoints = written[0];
+    }
+}
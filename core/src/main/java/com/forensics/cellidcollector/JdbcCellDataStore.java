@@ -0,0 +1,374 @@
+package com.forensics.cellidcollector;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Reads a cellid_forensics.db pulled off a device through any SQLite JDBC driver. Connections
+// are pooled so partitioned scans can run in parallel, each on its own read-only connection.
+public class JdbcCellDataStore implements CellDataStore {
+    private static final String TABLE_CELL_DATA = "cell_data";
+    private static final String TABLE_SIGNAL_SERIES = "signal_series";
+    private static final String TABLE_METADATA = "metadata";
+    private static final int FETCH_SIZE = 2000;
+
+    private final String url;
+    private final Properties properties = new Properties();
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed = false;
+
+    public JdbcCellDataStore(String databasePath) {
+        this.url = "jdbc:sqlite:" + databasePath;
+        // SQLITE_OPEN_READONLY; evidence databases are never written by the analyzer
+        properties.setProperty("open_mode", "1");
+    }
+
+    @Override
+    public int getTotalCellCount() {
+        return (int) queryLong("SELECT COUNT(*) FROM " + TABLE_CELL_DATA);
+    }
+
+    @Override
+    public long getFirstTimestamp() {
+        return queryLong("SELECT IFNULL(MIN(timestamp), -1) FROM " + TABLE_CELL_DATA);
+    }
+
+    @Override
+    public long getLastTimestamp() {
+        return queryLong("SELECT IFNULL(MAX(timestamp), -1) FROM " + TABLE_CELL_DATA);
+    }
+
+    @Override
+    public void scanObservations(long fromTimestamp, long toTimestamp, boolean registeredOnly,
+                                 CellDataVisitor visitor) {
+        String query = "SELECT * FROM " + TABLE_CELL_DATA + " WHERE timestamp >= ? AND timestamp <= ?" +
+            (registeredOnly ? " AND is_registered = 1" : "") + " ORDER BY timestamp, _id";
+
+        Connection connection = borrow();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setLong(1, fromTimestamp);
+            statement.setLong(2, toTimestamp);
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                visit(resultSet, visitor);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error scanning " + url, e);
+        } finally {
+            release(connection);
+        }
+    }
+
+    @Override
+    public void scanObservationColumns(long fromTimestamp, long toTimestamp, ObservationColumns page,
+                                       ObservationColumns.Visitor visitor) {
+        String query = "SELECT _id, timestamp, signal_strength, latitude, longitude FROM " + TABLE_CELL_DATA +
+            " WHERE timestamp >= ? AND timestamp <= ? ORDER BY timestamp, _id";
+
+        Connection connection = borrow();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setLong(1, fromTimestamp);
+            statement.setLong(2, toTimestamp);
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                page.clear();
+                while (resultSet.next()) {
+                    page.add(resultSet.getLong(1), resultSet.getLong(2), resultSet.getInt(3),
+                        resultSet.getDouble(4), resultSet.getDouble(5));
+                    if (page.isFull()) {
+                        boolean more = visitor.visit(page);
+                        page.clear();
+                        if (!more) {
+                            return;
+                        }
+                    }
+                }
+                if (page.size > 0) {
+                    visitor.visit(page);
+                    page.clear();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error scanning " + url, e);
+        } finally {
+            release(connection);
+        }
+    }
+
+    @Override
+    public void scanObservationsAfterId(long afterId, int limit, CellDataVisitor visitor) {
+        String query = "SELECT * FROM " + TABLE_CELL_DATA + " WHERE _id > ? ORDER BY _id LIMIT ?";
+
+        Connection connection = borrow();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setLong(1, afterId);
+            statement.setInt(2, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                visit(resultSet, visitor);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error scanning " + url, e);
+        } finally {
+            release(connection);
+        }
+    }
+
+    // Sealed signal series blocks overlapping the window, in start order; every cell when cellKey
+    // is null. Databases from before signal series have none.
+    public void scanSignalSeriesBlocks(String cellKey, long fromTimestamp, long toTimestamp,
+                                       SignalSeriesBlock.Visitor visitor) {
+        if (!hasTable(TABLE_SIGNAL_SERIES)) {
+            return;
+        }
+        String query = "SELECT _id, cell_key, technology, mcc, mnc, start_ts, end_ts, sample_count, data FROM " +
+            TABLE_SIGNAL_SERIES + " WHERE end_ts >= ? AND start_ts <= ?" +
+            (cellKey != null ? " AND cell_key = ?" : "") + " ORDER BY start_ts, _id";
+
+        Connection connection = borrow();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setLong(1, fromTimestamp);
+            statement.setLong(2, toTimestamp);
+            if (cellKey != null) {
+                statement.setString(3, cellKey);
+            }
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    SignalSeriesBlock block = new SignalSeriesBlock();
+                    block.id = resultSet.getLong(1);
+                    block.cellKey = resultSet.getString(2);
+                    block.technology = resultSet.getString(3);
+                    block.mcc = resultSet.getString(4);
+                    block.mnc = resultSet.getString(5);
+                    block.startTimestamp = resultSet.getLong(6);
+                    block.endTimestamp = resultSet.getLong(7);
+                    block.sampleCount = resultSet.getInt(8);
+                    block.data = resultSet.getBytes(9);
+                    if (!visitor.visit(block)) {
+                        return;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error scanning signal series in " + url, e);
+        } finally {
+            release(connection);
+        }
+    }
+
+    // Signal history of one cell: the sealed blocks, then the rows the app had not sealed yet,
+    // which are the ones at or after the stored mark and past the cell's last sealed sample
+    public SignalSeries readSignalSeries(String cellKey, long fromTimestamp, long toTimestamp) {
+        SignalSeries series = new SignalSeries(0);
+        long[] sealedUntil = {Long.MIN_VALUE};
+        scanSignalSeriesBlocks(cellKey, Long.MIN_VALUE, Long.MAX_VALUE, block -> {
+            if (block.endTimestamp >= fromTimestamp && block.startTimestamp <= toTimestamp) {
+                series.addRange(block.decode(), fromTimestamp, toTimestamp);
+            }
+            sealedUntil[0] = Math.max(sealedUntil[0], block.endTimestamp);
+            return true;
+        });
+
+        long mark = 0;
+        if (hasTable(TABLE_METADATA)) {
+            String value = queryString("SELECT value FROM " + TABLE_METADATA + " WHERE key = 'signal_series_mark'");
+            mark = value != null ? Long.parseLong(value) : 0;
+        }
+        String query = "SELECT _id, timestamp, technology, cell_id, lac_tac, mcc, mnc, signal_strength FROM " +
+            TABLE_CELL_DATA + " WHERE _id >= ? AND timestamp >= ? AND timestamp <= ? ORDER BY timestamp, _id";
+
+        Connection connection = borrow();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setLong(1, mark);
+            statement.setLong(2, fromTimestamp);
+            statement.setLong(3, toTimestamp);
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                visit(resultSet, cellData -> {
+                    if (cellData.timestamp > sealedUntil[0] && CoverageGrid.isValidSignal(cellData.signalStrength) &&
+                            CoverageTile.cellGroupKey(cellData).equals(cellKey)) {
+                        series.add(cellData.timestamp, cellData.signalStrength);
+                    }
+                    return true;
+                });
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error scanning " + url, e);
+        } finally {
+            release(connection);
+        }
+        return series;
+    }
+
+    private static void visit(ResultSet resultSet, CellDataVisitor visitor) throws SQLException {
+        Columns columns = new Columns(resultSet.getMetaData());
+        while (resultSet.next()) {
+            if (!visitor.visit(columns.read(resultSet))) {
+                break;
+            }
+        }
+    }
+
+    private long queryLong(String query) {
+        Connection connection = borrow();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error querying " + url, e);
+        } finally {
+            release(connection);
+        }
+    }
+
+    private String queryString(String query) {
+        Connection connection = borrow();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error querying " + url, e);
+        } finally {
+            release(connection);
+        }
+    }
+
+    private boolean hasTable(String table) {
+        return queryLong("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = '" + table + "'") > 0;
+    }
+
+    private Connection borrow() {
+        if (closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+        Connection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        try {
+            return DriverManager.getConnection(url, properties);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open " + url, e);
+        }
+    }
+
+    private void release(Connection connection) {
+        if (closed) {
+            closeQuietly(connection);
+        } else {
+            idle.offer(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Nothing to recover on a read-only connection
+        }
+    }
+
+    // Column positions resolved once per result set. Databases written by older app versions
+    // lack the newer columns; those keep CellData's defaults.
+    private static class Columns {
+        final int id, timestamp, technology, cellId, lac, mcc, mnc, signalStrength, isRegistered;
+        final int latitude, longitude, accuracy, pci, psc, bsic, earfcn, uarfcn, arfcn, nrarfcn;
+        final int timingAdvance, subscriptionId, simSlot, inReference, refLatitude, refLongitude, refRange;
+        final int additionalInfo;
+
+        Columns(ResultSetMetaData metaData) throws SQLException {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                positions.put(metaData.getColumnName(i), i);
+            }
+            id = positions.getOrDefault("_id", 0);
+            timestamp = positions.getOrDefault("timestamp", 0);
+            technology = positions.getOrDefault("technology", 0);
+            cellId = positions.getOrDefault("cell_id", 0);
+            lac = positions.getOrDefault("lac_tac", 0);
+            mcc = positions.getOrDefault("mcc", 0);
+            mnc = positions.getOrDefault("mnc", 0);
+            signalStrength = positions.getOrDefault("signal_strength", 0);
+            isRegistered = positions.getOrDefault("is_registered", 0);
+            latitude = positions.getOrDefault("latitude", 0);
+            longitude = positions.getOrDefault("longitude", 0);
+            accuracy = positions.getOrDefault("accuracy", 0);
+            pci = positions.getOrDefault("pci", 0);
+            psc = positions.getOrDefault("psc", 0);
+            bsic = positions.getOrDefault("bsic", 0);
+            earfcn = positions.getOrDefault("earfcn", 0);
+            uarfcn = positions.getOrDefault("uarfcn", 0);
+            arfcn = positions.getOrDefault("arfcn", 0);
+            nrarfcn = positions.getOrDefault("nrarfcn", 0);
+            timingAdvance = positions.getOrDefault("timing_advance", 0);
+            subscriptionId = positions.getOrDefault("subscription_id", 0);
+            simSlot = positions.getOrDefault("sim_slot", 0);
+            inReference = positions.getOrDefault("in_reference", 0);
+            refLatitude = positions.getOrDefault("ref_latitude", 0);
+            refLongitude = positions.getOrDefault("ref_longitude", 0);
+            refRange = positions.getOrDefault("ref_range", 0);
+            additionalInfo = positions.getOrDefault("additional_info", 0);
+        }
+
+        CellData read(ResultSet resultSet) throws SQLException {
+            CellData cellData = new CellData();
+            cellData.id = resultSet.getLong(id);
+            cellData.timestamp = resultSet.getLong(timestamp);
+            cellData.technology = resultSet.getString(technology);
+            cellData.cellId = resultSet.getString(cellId);
+            cellData.lac = string(resultSet, lac);
+            cellData.mcc = string(resultSet, mcc);
+            cellData.mnc = string(resultSet, mnc);
+            cellData.signalStrength = (int) number(resultSet, signalStrength, 0);
+            cellData.isRegistered = number(resultSet, isRegistered, 0) == 1;
+            cellData.latitude = real(resultSet, latitude);
+            cellData.longitude = real(resultSet, longitude);
+            cellData.accuracy = (float) real(resultSet, accuracy);
+            cellData.pci = (int) number(resultSet, pci, -1);
+            cellData.psc = (int) number(resultSet, psc, -1);
+            cellData.bsic = (int) number(resultSet, bsic, -1);
+            cellData.earfcn = (int) number(resultSet, earfcn, -1);
+            cellData.uarfcn = (int) number(resultSet, uarfcn, -1);
+            cellData.arfcn = (int) number(resultSet, arfcn, -1);
+            cellData.nrarfcn = (int) number(resultSet, nrarfcn, -1);
+            cellData.timingAdvance = (int) number(resultSet, timingAdvance, -1);
+            cellData.subscriptionId = (int) number(resultSet, subscriptionId, CellData.UNKNOWN_SUBSCRIPTION);
+            cellData.simSlot = (int) number(resultSet, simSlot, CellData.UNKNOWN_SLOT);
+            cellData.referenceStatus = (int) number(resultSet, inReference, CellData.REFERENCE_UNCHECKED);
+            cellData.referenceLatitude = real(resultSet, refLatitude);
+            cellData.referenceLongitude = real(resultSet, refLongitude);
+            cellData.referenceRange = (int) number(resultSet, refRange, -1);
+            cellData.additionalInfo = string(resultSet, additionalInfo);
+            return cellData;
+        }
+
+        private static String string(ResultSet resultSet, int column) throws SQLException {
+            return column > 0 ? resultSet.getString(column) : null;
+        }
+
+        private static long number(ResultSet resultSet, int column, long missing) throws SQLException {
+            return column > 0 ? resultSet.getLong(column) : missing;
+        }
+
+        private static double real(ResultSet resultSet, int column) throws SQLException {
+            return column > 0 ? resultSet.getDouble(column) : 0;
+        }
+    }
+}
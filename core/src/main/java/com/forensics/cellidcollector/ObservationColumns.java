@@ -0,0 +1,51 @@
+package com.forensics.cellidcollector;
+
+// A page of observations decoded straight into primitive columns, for counting and charting
+// code that never needs CellData objects. Scans refill the same page, so a full-table pass
+// allocates nothing per row.
+public class ObservationColumns {
+    public interface Visitor {
+        // Return false to stop the scan; the page is cleared and refilled after this returns
+        boolean visit(ObservationColumns page);
+    }
+
+    public final long[] ids;
+    public final long[] timestamps;
+    public final int[] signalStrengths;
+    public final double[] latitudes;
+    public final double[] longitudes;
+    public int size;
+
+    public ObservationColumns(int capacity) {
+        ids = new long[capacity];
+        timestamps = new long[capacity];
+        signalStrengths = new int[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    public boolean isFull() {
+        return size == ids.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(long id, long timestamp, int signalStrength, double latitude, double longitude) {
+        ids[size] = id;
+        timestamps[size] = timestamp;
+        signalStrengths[size] = signalStrength;
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        size++;
+    }
+
+    public boolean hasLocation(int index) {
+        return latitudes[index] != 0 || longitudes[index] != 0;
+    }
+}
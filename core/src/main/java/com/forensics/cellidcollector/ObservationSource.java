@@ -0,0 +1,6 @@
+package com.forensics.cellidcollector;
+
+public interface ObservationSource {
+    // Streams observations with fromTimestamp <= timestamp <= toTimestamp in timestamp order
+    void scanObservations(long fromTimestamp, long toTimestamp, boolean registeredOnly, CellDataVisitor visitor);
+}
@@ -0,0 +1,138 @@
+package com.forensics.cellidcollector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Operator names by MCC/MNC, and the provider coverage report built from them
+public final class ProviderHelper {
+    public static final String UNKNOWN_PROVIDER = "Unknown";
+
+    private static final Map<String, String> PROVIDERS = new HashMap<>();
+    // Major operators per country MCC; a capture is complete once every major operator of each
+    // country it saw has been detected
+    private static final Map<String, List<String>> MAJOR_PROVIDERS = new LinkedHashMap<>();
+
+    static {
+        // India
+        register("405", "Jio", "840", "854", "855", "856", "857", "858", "859", "860", "861", "862", "863",
+            "864", "865", "866", "867", "868", "869", "870", "871", "872", "873", "874");
+        register("404", "Airtel", "02", "03", "10", "16", "31", "40", "45", "49", "70", "90", "92", "93", "94",
+            "95", "96", "97", "98");
+        register("405", "Airtel", "51", "52", "53", "54", "55", "56");
+        register("404", "Vi", "01", "05", "11", "12", "13", "14", "15", "19", "20", "22", "24", "27", "30",
+            "43", "44", "46", "56", "60", "78", "82", "84", "86", "87", "88");
+        register("405", "Vi", "66", "67", "750", "751", "752", "753", "754", "755", "756", "799");
+        register("404", "BSNL", "34", "38", "51", "53", "54", "55", "57", "58", "59", "62", "64", "66", "71",
+            "72", "73", "74", "75", "76", "77", "79", "80", "81");
+        register("404", "MTNL", "68", "69");
+        // United States
+        register("310", "T-Mobile", "026", "160", "200", "210", "220", "230", "240", "250", "260", "270",
+            "310", "490", "660", "800");
+        register("311", "T-Mobile", "490", "660", "882");
+        register("310", "AT&T", "030", "070", "080", "090", "150", "170", "280", "380", "410", "560", "680",
+            "950");
+        register("311", "AT&T", "180");
+        register("310", "Verizon", "004", "010", "012", "013", "590", "890", "910");
+        register("311", "Verizon", "110", "270", "271", "272", "273", "274", "275", "276", "277", "278",
+            "279", "280", "281", "282", "283", "284", "285", "286", "287", "288", "289", "390", "480",
+            "481", "482", "483", "484", "485", "486", "487", "488", "489");
+        register("312", "Verizon", "770");
+        register("313", "Dish", "340");
+
+        MAJOR_PROVIDERS.put("404", Arrays.asList("Jio", "Airtel", "Vi", "BSNL"));
+        MAJOR_PROVIDERS.put("405", MAJOR_PROVIDERS.get("404"));
+        List<String> us = Arrays.asList("T-Mobile", "AT&T", "Verizon");
+        for (String mcc : new String[] {"310", "311", "312", "313", "314", "315", "316"}) {
+            MAJOR_PROVIDERS.put(mcc, us);
+        }
+    }
+
+    private ProviderHelper() {}
+
+    private static void register(String mcc, String name, String... mncs) {
+        for (String mnc : mncs) {
+            PROVIDERS.put(mcc + "-" + mnc, name);
+        }
+    }
+
+    public static String getProviderName(String mcc, String mnc) {
+        if (mcc == null || mnc == null) {
+            return UNKNOWN_PROVIDER;
+        }
+        String name = PROVIDERS.get(mcc + "-" + mnc);
+        if (name == null && mnc.length() == 2) {
+            // Some modems report three-digit MNCs without the leading zero
+            name = PROVIDERS.get(mcc + "-0" + mnc);
+        }
+        return name != null ? name : UNKNOWN_PROVIDER + " (" + mcc + "-" + mnc + ")";
+    }
+
+    public static void enrichCellDataWithProvider(CellData cellData) {
+        cellData.provider = getProviderName(cellData.mcc, cellData.mnc);
+    }
+
+    // Provider stored on the row, or looked up again for rows read back from the database
+    public static String providerOf(CellData cellData) {
+        return cellData.provider != null ? cellData.provider : getProviderName(cellData.mcc, cellData.mnc);
+    }
+
+    public static String generateProviderSummary(List<CellData> cellDataList) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (CellData cellData : cellDataList) {
+            counts.merge(providerOf(cellData), 1L, Long::sum);
+        }
+        return formatProviderSummary(counts, cellDataList.size());
+    }
+
+    public static String formatProviderSummary(Map<String, Long> counts, long total) {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Total observations: ").append(total).append('\n');
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        for (Map.Entry<String, Long> entry : entries) {
+            long percent = total > 0 ? entry.getValue() * 100 / total : 0;
+            summary.append(entry.getKey()).append(": ").append(entry.getValue())
+                .append(" (").append(percent).append("%)\n");
+        }
+        return summary.toString();
+    }
+
+    public static boolean hasDetectedAllMajorProviders(List<CellData> cellDataList) {
+        return getMissingProviders(cellDataList).isEmpty();
+    }
+
+    public static List<String> getMissingProviders(List<CellData> cellDataList) {
+        Set<String> mccs = new LinkedHashSet<>();
+        Set<String> detected = new LinkedHashSet<>();
+        for (CellData cellData : cellDataList) {
+            if (cellData.mcc != null) {
+                mccs.add(cellData.mcc);
+            }
+            detected.add(providerOf(cellData));
+        }
+        return getMissingProviders(mccs, detected);
+    }
+
+    public static List<String> getMissingProviders(Collection<String> mccs, Collection<String> detected) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String mcc : mccs) {
+            List<String> majors = MAJOR_PROVIDERS.get(mcc);
+            if (majors == null) {
+                continue;
+            }
+            for (String provider : majors) {
+                if (!detected.contains(provider)) {
+                    missing.add(provider);
+                }
+            }
+        }
+        return new ArrayList<>(missing);
+    }
+}
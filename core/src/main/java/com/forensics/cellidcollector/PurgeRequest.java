@@ -0,0 +1,50 @@
+package com.forensics.cellidcollector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Which observations a purge removes. Criteria combine with AND; a request with no
+// criteria matches everything.
+public class PurgeRequest {
+    public long fromTimestamp = Long.MIN_VALUE;
+    public long toTimestamp = Long.MAX_VALUE;
+    public final List<String> technologies = new ArrayList<>();
+    // Operators as "mcc-mnc", e.g. "310-260"
+    public final List<String> operators = new ArrayList<>();
+
+    public static PurgeRequest all() {
+        return new PurgeRequest();
+    }
+
+    public static PurgeRequest timeRange(long fromTimestamp, long toTimestamp) {
+        PurgeRequest request = new PurgeRequest();
+        request.fromTimestamp = fromTimestamp;
+        request.toTimestamp = toTimestamp;
+        return request;
+    }
+
+    public PurgeRequest withTechnologies(String... technologies) {
+        this.technologies.addAll(Arrays.asList(technologies));
+        return this;
+    }
+
+    public PurgeRequest withOperators(String... operators) {
+        this.operators.addAll(Arrays.asList(operators));
+        return this;
+    }
+
+    public boolean isAll() {
+        return fromTimestamp == Long.MIN_VALUE && toTimestamp == Long.MAX_VALUE &&
+            technologies.isEmpty() && operators.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (isAll()) {
+            return "PurgeRequest{all}";
+        }
+        return "PurgeRequest{from=" + fromTimestamp + ", to=" + toTimestamp + ", technologies=" + technologies +
+            ", operators=" + operators + "}";
+    }
+}
@@ -0,0 +1,55 @@
+package com.forensics.cellidcollector;
+
+public class ReferenceTower {
+    public static final int RADIO_GSM = 1;
+    public static final int RADIO_UMTS = 2;
+    public static final int RADIO_LTE = 3;
+    public static final int RADIO_NR = 4;
+
+    public int radio;
+    public int mcc;
+    public int mnc;
+    public long area;
+    public long cell;
+    public double latitude;
+    public double longitude;
+    public int range;
+    // Seconds since the epoch, as in the OpenCellID "created" column
+    public long firstSeen;
+
+    public static int radioOf(String technology) {
+        if (technology == null) {
+            return 0;
+        }
+        switch (technology) {
+            case "GSM":
+                return RADIO_GSM;
+            case "UMTS":
+            case "WCDMA":
+                return RADIO_UMTS;
+            case "LTE":
+                return RADIO_LTE;
+            case "NR":
+                return RADIO_NR;
+            default:
+                return 0;
+        }
+    }
+
+    // Sort key, high word: radio | mcc | mnc | area; the low word is the cell identity itself
+    public static long packKeyHigh(int radio, int mcc, int mnc, long area) {
+        return ((long) (radio & 0xFF) << 56) | ((long) (mcc & 0xFFF) << 44) | ((long) (mnc & 0xFFF) << 32) |
+            (area & 0xFFFFFFFFL);
+    }
+
+    public long getFirstSeenMillis() {
+        return firstSeen * 1000L;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceTower{radio=" + radio + ", mcc=" + mcc + ", mnc=" + mnc + ", area=" + area +
+            ", cell=" + cell + ", lat=" + latitude + ", lon=" + longitude + ", range=" + range +
+            ", firstSeen=" + firstSeen + "}";
+    }
+}
@@ -0,0 +1,397 @@
+package com.forensics.cellidcollector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.GZIPInputStream;
+
+// Builds a ReferenceTowerIndex from an OpenCellID-style CSV dump
+// (radio,mcc,net,area,cell,unit,lon,lat,range,samples,changeable,created,updated,averageSignal).
+// Rows are parsed into fixed-size chunks, each chunk is sorted in memory and spilled as a run,
+// and the runs are k-way merged into the final file, so heap use is bounded by the chunk size.
+public class ReferenceTowerImporter {
+    private static final int DEFAULT_CHUNK_RECORDS = 1 << 20;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final int PROGRESS_INTERVAL = 1_000_000;
+
+    public interface ProgressListener {
+        void onProgress(long rowsRead, long rowsAccepted);
+    }
+
+    private final File workDir;
+    private final int chunkRecords;
+    private ProgressListener progressListener;
+
+    private long[] keyHigh;
+    private long[] keyLow;
+    private float[] latitudes;
+    private float[] longitudes;
+    private int[] ranges;
+    private int[] created;
+    private int[] order;
+    private int chunkSize;
+    private final int[] bounds = new int[28];
+
+    private long rowsRead;
+    private long rowsAccepted;
+
+    public ReferenceTowerImporter(File workDir) {
+        this(workDir, DEFAULT_CHUNK_RECORDS);
+    }
+
+    public ReferenceTowerImporter(File workDir, int chunkRecords) {
+        this.workDir = workDir;
+        this.chunkRecords = chunkRecords;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public long importCsv(File csvFile, File indexFile) throws IOException {
+        allocateChunk();
+        List<File> runs = new ArrayList<>();
+        File tempIndex = new File(indexFile.getPath() + ".tmp");
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                openInput(csvFile), StandardCharsets.US_ASCII), IO_BUFFER_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Reference import interrupted");
+                }
+                rowsRead++;
+                if (parseLine(line)) {
+                    rowsAccepted++;
+                    if (chunkSize == chunkRecords) {
+                        runs.add(spillChunk());
+                    }
+                }
+                if (progressListener != null && rowsRead % PROGRESS_INTERVAL == 0) {
+                    progressListener.onProgress(rowsRead, rowsAccepted);
+                }
+            }
+            if (chunkSize > 0) {
+                runs.add(spillChunk());
+            }
+            releaseChunk();
+
+            long written = mergeRuns(runs, tempIndex);
+            if (indexFile.exists() && !indexFile.delete()) {
+                throw new IOException("Cannot replace " + indexFile);
+            }
+            if (!tempIndex.renameTo(indexFile)) {
+                throw new IOException("Cannot move index into place: " + indexFile);
+            }
+            if (progressListener != null) {
+                progressListener.onProgress(rowsRead, rowsAccepted);
+            }
+            return written;
+        } finally {
+            releaseChunk();
+            for (File run : runs) {
+                run.delete();
+            }
+            tempIndex.delete();
+        }
+    }
+
+    private static InputStream openInput(File csvFile) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(csvFile), IO_BUFFER_SIZE);
+        return csvFile.getName().endsWith(".gz") ? new GZIPInputStream(in, IO_BUFFER_SIZE) : in;
+    }
+
+    private void allocateChunk() {
+        keyHigh = new long[chunkRecords];
+        keyLow = new long[chunkRecords];
+        latitudes = new float[chunkRecords];
+        longitudes = new float[chunkRecords];
+        ranges = new int[chunkRecords];
+        created = new int[chunkRecords];
+        order = new int[chunkRecords];
+        chunkSize = 0;
+    }
+
+    private void releaseChunk() {
+        keyHigh = null;
+        keyLow = null;
+        latitudes = null;
+        longitudes = null;
+        ranges = null;
+        created = null;
+        order = null;
+    }
+
+    // Hand-rolled field splitting: String.split allocates a regex and an array per row,
+    // which dominates import time on tens of millions of rows
+    private boolean parseLine(String line) {
+        int fields = 0;
+        int start = 0;
+        for (int i = 0; i <= line.length() && fields < 14; i++) {
+            if (i == line.length() || line.charAt(i) == ',') {
+                bounds[fields * 2] = start;
+                bounds[fields * 2 + 1] = i;
+                fields++;
+                start = i + 1;
+            }
+        }
+        if (fields < 12) {
+            return false;
+        }
+
+        int radio = ReferenceTower.radioOf(line.substring(bounds[0], bounds[1]));
+        if (radio == 0) {
+            // Header row, CDMA, or garbage
+            return false;
+        }
+
+        try {
+            int mcc = (int) parseLong(line, bounds[2], bounds[3]);
+            int mnc = (int) parseLong(line, bounds[4], bounds[5]);
+            long area = parseLong(line, bounds[6], bounds[7]);
+            long cell = parseLong(line, bounds[8], bounds[9]);
+            float lon = Float.parseFloat(line.substring(bounds[12], bounds[13]));
+            float lat = Float.parseFloat(line.substring(bounds[14], bounds[15]));
+            int range = (int) Math.min(Integer.MAX_VALUE, parseLong(line, bounds[16], bounds[17]));
+            long createdSeconds = parseLong(line, bounds[22], bounds[23]);
+
+            int i = chunkSize++;
+            keyHigh[i] = ReferenceTower.packKeyHigh(radio, mcc, mnc, area);
+            keyLow[i] = cell;
+            latitudes[i] = lat;
+            longitudes[i] = lon;
+            ranges[i] = range;
+            created[i] = (int) createdSeconds;
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static long parseLong(String line, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("empty field");
+        }
+        long value = 0;
+        boolean negative = line.charAt(start) == '-';
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("not a number: " + line.substring(start, end));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private File spillChunk() throws IOException {
+        for (int i = 0; i < chunkSize; i++) {
+            order[i] = i;
+        }
+        sort(0, chunkSize - 1);
+
+        File run = File.createTempFile("reftower", ".run", workDir);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(run), IO_BUFFER_SIZE))) {
+            for (int n = 0; n < chunkSize; n++) {
+                int i = order[n];
+                out.writeLong(keyHigh[i]);
+                out.writeLong(keyLow[i]);
+                out.writeFloat(latitudes[i]);
+                out.writeFloat(longitudes[i]);
+                out.writeInt(ranges[i]);
+                out.writeInt(created[i]);
+            }
+        }
+        chunkSize = 0;
+        return run;
+    }
+
+    private int compare(int a, int b) {
+        int cmp = Long.compare(keyHigh[a], keyHigh[b]);
+        return cmp != 0 ? cmp : Long.compare(keyLow[a], keyLow[b]);
+    }
+
+    // Quicksort of the permutation array; avoids boxing millions of indices for Arrays.sort
+    private void sort(int left, int right) {
+        while (right - left > 16) {
+            int mid = (left + right) >>> 1;
+            if (compare(order[mid], order[left]) < 0) swap(mid, left);
+            if (compare(order[right], order[left]) < 0) swap(right, left);
+            if (compare(order[right], order[mid]) < 0) swap(right, mid);
+            int pivot = order[mid];
+
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (compare(order[i], pivot) < 0) i++;
+                while (compare(order[j], pivot) > 0) j--;
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half to bound stack depth
+            if (j - left < right - i) {
+                sort(left, j);
+                left = i;
+            } else {
+                sort(i, right);
+                right = j;
+            }
+        }
+        for (int i = left + 1; i <= right; i++) {
+            int value = order[i];
+            int j = i - 1;
+            while (j >= left && compare(order[j], value) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = value;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int tmp = order[a];
+        order[a] = order[b];
+        order[b] = tmp;
+    }
+
+    private static class RunReader implements Comparable<RunReader> {
+        final DataInputStream in;
+        long high;
+        long low;
+        float latitude;
+        float longitude;
+        int range;
+        int created;
+
+        RunReader(File run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), IO_BUFFER_SIZE));
+        }
+
+        boolean next() throws IOException {
+            try {
+                high = in.readLong();
+            } catch (EOFException e) {
+                in.close();
+                return false;
+            }
+            low = in.readLong();
+            latitude = in.readFloat();
+            longitude = in.readFloat();
+            range = in.readInt();
+            created = in.readInt();
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            int cmp = Long.compare(high, other.high);
+            return cmp != 0 ? cmp : Long.compare(low, other.low);
+        }
+    }
+
+    private long mergeRuns(List<File> runs, File output) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>();
+        List<RunReader> readers = new ArrayList<>();
+        long written = 0;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(output), IO_BUFFER_SIZE))) {
+            writeHeader(out, 0);
+
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+
+            boolean hasPrevious = false;
+            long prevHigh = 0;
+            long prevLow = 0;
+            float prevLat = 0;
+            float prevLon = 0;
+            int prevRange = 0;
+            int prevCreated = 0;
+
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+
+                if (hasPrevious && reader.high == prevHigh && reader.low == prevLow) {
+                    // Duplicate identity across dump files: keep the widest range and earliest sighting
+                    prevRange = Math.max(prevRange, reader.range);
+                    if (reader.created != 0 && (prevCreated == 0 ||
+                            Integer.compareUnsigned(reader.created, prevCreated) < 0)) {
+                        prevCreated = reader.created;
+                    }
+                } else {
+                    if (hasPrevious) {
+                        writeRecord(out, prevHigh, prevLow, prevLat, prevLon, prevRange, prevCreated);
+                        written++;
+                    }
+                    hasPrevious = true;
+                    prevHigh = reader.high;
+                    prevLow = reader.low;
+                    prevLat = reader.latitude;
+                    prevLon = reader.longitude;
+                    prevRange = reader.range;
+                    prevCreated = reader.created;
+                }
+
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            if (hasPrevious) {
+                writeRecord(out, prevHigh, prevLow, prevLat, prevLon, prevRange, prevCreated);
+                written++;
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+            file.seek(16);
+            file.writeLong(written);
+        }
+        return written;
+    }
+
+    private static void writeHeader(DataOutputStream out, long recordCount) throws IOException {
+        out.writeLong(ReferenceTowerIndex.MAGIC);
+        out.writeInt(ReferenceTowerIndex.FORMAT_VERSION);
+        out.writeInt(ReferenceTowerIndex.RECORD_SIZE);
+        out.writeLong(recordCount);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    private static void writeRecord(DataOutputStream out, long high, long low, float latitude, float longitude,
+                                    int range, int created) throws IOException {
+        out.writeLong(high);
+        out.writeLong(low);
+        out.writeFloat(latitude);
+        out.writeFloat(longitude);
+        out.writeInt(range);
+        out.writeInt(created);
+    }
+}
@@ -0,0 +1,143 @@
+package com.forensics.cellidcollector;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Read-only, memory-mapped view of an index built by ReferenceTowerImporter. Records are
+// fixed-size and sorted by packed key, so a lookup is a binary search over the mapping and
+// nothing but the header is ever copied onto the heap.
+public class ReferenceTowerIndex implements Closeable {
+    static final long MAGIC = 0x43454c4c52454631L; // "CELLREF1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+
+    // Each MappedByteBuffer is capped at 2 GB, so large indexes are mapped in segments
+    private static final int RECORDS_PER_SEGMENT = (Integer.MAX_VALUE / RECORD_SIZE) & ~0xFFF;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer[] segments;
+    private final long recordCount;
+    private final long createdMillis;
+
+    private ReferenceTowerIndex(RandomAccessFile file, MappedByteBuffer[] segments, long recordCount,
+                                long createdMillis) {
+        this.file = file;
+        this.segments = segments;
+        this.recordCount = recordCount;
+        this.createdMillis = createdMillis;
+    }
+
+    public static ReferenceTowerIndex open(File indexFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.BIG_ENDIAN);
+
+            if (header.getLong(0) != MAGIC || header.getInt(8) != FORMAT_VERSION ||
+                    header.getInt(12) != RECORD_SIZE) {
+                throw new IOException("Not a reference tower index: " + indexFile);
+            }
+            long recordCount = header.getLong(16);
+            long createdMillis = header.getLong(24);
+            if (HEADER_SIZE + recordCount * RECORD_SIZE > channel.size()) {
+                throw new IOException("Truncated reference tower index: " + indexFile);
+            }
+
+            int segmentCount = (int) ((recordCount + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long first = (long) i * RECORDS_PER_SEGMENT;
+                long records = Math.min(RECORDS_PER_SEGMENT, recordCount - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+                segments[i].order(ByteOrder.BIG_ENDIAN);
+            }
+
+            return new ReferenceTowerIndex(file, segments, recordCount, createdMillis);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return recordCount;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public ReferenceTower lookup(CellData cellData) {
+        int radio = ReferenceTower.radioOf(cellData.technology);
+        long cell = cellData.getCellIdentity();
+        int mcc = parseInt(cellData.mcc);
+        int mnc = parseInt(cellData.mnc);
+        long area = parseInt(cellData.lac);
+        if (radio == 0 || cell < 0 || mcc < 0 || mnc < 0 || area < 0) {
+            return null;
+        }
+        return lookup(radio, mcc, mnc, area, cell);
+    }
+
+    // Thread-safe: only absolute reads are used on the shared buffers
+    public ReferenceTower lookup(int radio, int mcc, int mnc, long area, long cell) {
+        long key = ReferenceTower.packKeyHigh(radio, mcc, mnc, area);
+        long lo = 0;
+        long hi = recordCount - 1;
+
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            MappedByteBuffer segment = segments[(int) (mid / RECORDS_PER_SEGMENT)];
+            int offset = (int) (mid % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+
+            int cmp = Long.compare(segment.getLong(offset), key);
+            if (cmp == 0) {
+                cmp = Long.compare(segment.getLong(offset + 8), cell);
+            }
+
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                ReferenceTower tower = new ReferenceTower();
+                tower.radio = radio;
+                tower.mcc = mcc;
+                tower.mnc = mnc;
+                tower.area = area;
+                tower.cell = cell;
+                tower.latitude = segment.getFloat(offset + 16);
+                tower.longitude = segment.getFloat(offset + 20);
+                tower.range = segment.getInt(offset + 24);
+                tower.firstSeen = segment.getInt(offset + 28) & 0xFFFFFFFFL;
+                return tower;
+            }
+        }
+        return null;
+    }
+
+    private static int parseInt(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed == Integer.MAX_VALUE ? -1 : parsed;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.forensics.cellidcollector;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Signal level over time per bucket, built from columnar pages for charting
+public class SignalProfile {
+    private static final int BAR_WIDTH = 40;
+    // Bars span the usable range of every technology's reported dBm
+    private static final int BAR_FLOOR_DBM = -140;
+    private static final int BAR_CEILING_DBM = -40;
+
+    public static class Bucket {
+        public long observations;
+        public long withLocation;
+        public long signalCount;
+        public long signalSum;
+        public int minSignal = Integer.MAX_VALUE;
+        public int maxSignal = Integer.MIN_VALUE;
+    }
+
+    public final long bucketMs;
+    public final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+    private long currentStart = Long.MIN_VALUE;
+    private Bucket current;
+
+    public SignalProfile(long bucketMs) {
+        this.bucketMs = bucketMs;
+    }
+
+    public void accept(ObservationColumns page) {
+        for (int i = 0; i < page.size; i++) {
+            long start = Math.floorDiv(page.timestamps[i], bucketMs) * bucketMs;
+            // Pages arrive in timestamp order, so the map is only consulted on bucket changes
+            if (start != currentStart) {
+                currentStart = start;
+                current = buckets.get(start);
+                if (current == null) {
+                    current = new Bucket();
+                    buckets.put(start, current);
+                }
+            }
+
+            current.observations++;
+            if (page.hasLocation(i)) {
+                current.withLocation++;
+            }
+            int signal = page.signalStrengths[i];
+            if (CoverageGrid.isValidSignal(signal)) {
+                current.signalCount++;
+                current.signalSum += signal;
+                current.minSignal = Math.min(current.minSignal, signal);
+                current.maxSignal = Math.max(current.maxSignal, signal);
+            }
+        }
+    }
+
+    public SignalProfile merge(SignalProfile other) {
+        for (Map.Entry<Long, Bucket> entry : other.buckets.entrySet()) {
+            Bucket bucket = buckets.get(entry.getKey());
+            if (bucket == null) {
+                buckets.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            Bucket source = entry.getValue();
+            bucket.observations += source.observations;
+            bucket.withLocation += source.withLocation;
+            bucket.signalCount += source.signalCount;
+            bucket.signalSum += source.signalSum;
+            bucket.minSignal = Math.min(bucket.minSignal, source.minSignal);
+            bucket.maxSignal = Math.max(bucket.maxSignal, source.maxSignal);
+        }
+        currentStart = Long.MIN_VALUE;
+        return this;
+    }
+
+    public String format() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.US);
+        StringBuilder report = new StringBuilder();
+        report.append("Start             Observations  Fixes   Min  Mean   Max\n");
+        for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            report.append(String.format(Locale.US, "%-16s  %12d  %5d", dateFormat.format(new Date(entry.getKey())),
+                bucket.observations, bucket.withLocation));
+            if (bucket.signalCount == 0) {
+                report.append("     -     -     -\n");
+                continue;
+            }
+            long mean = bucket.signalSum / bucket.signalCount;
+            report.append(String.format(Locale.US, "  %4d  %4d  %4d  ", bucket.minSignal, mean, bucket.maxSignal));
+            long filled = (mean - BAR_FLOOR_DBM) * BAR_WIDTH / (BAR_CEILING_DBM - BAR_FLOOR_DBM);
+            for (long i = 0; i < Math.max(0, Math.min(BAR_WIDTH, filled)); i++) {
+                report.append('#');
+            }
+            report.append('\n');
+        }
+        return report.toString();
+    }
+}
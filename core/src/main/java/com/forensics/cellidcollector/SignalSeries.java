@@ -0,0 +1,53 @@
+package com.forensics.cellidcollector;
+
+import java.util.Arrays;
+
+// Decoded samples of one cell, in primitive arrays for plotting
+public class SignalSeries {
+    private long[] timestamps;
+    private int[] values;
+    private int size;
+
+    public SignalSeries(int capacity) {
+        timestamps = new long[Math.max(capacity, 4)];
+        values = new int[Math.max(capacity, 4)];
+    }
+
+    public void add(long timestamp, int value) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    public void addRange(SignalSeries other, long fromTimestamp, long toTimestamp) {
+        for (int i = 0; i < other.size; i++) {
+            if (other.timestamps[i] >= fromTimestamp && other.timestamps[i] <= toTimestamp) {
+                add(other.timestamps[i], other.values[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    public long[] getTimestamps() {
+        return Arrays.copyOf(timestamps, size);
+    }
+
+    public int[] getValues() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,55 @@
+package com.forensics.cellidcollector;
+
+public class SignalSeriesBlock {
+    public interface Visitor {
+        // Return false to stop the scan
+        boolean visit(SignalSeriesBlock block);
+    }
+
+    public long id;
+    public String cellKey;
+    public String technology;
+    public String mcc;
+    public String mnc;
+    public long startTimestamp;
+    public long endTimestamp;
+    public int sampleCount;
+    public byte[] data;
+
+    public SignalSeries decode() {
+        return SignalSeriesCodec.decode(data, sampleCount);
+    }
+
+    public static SignalSeriesBlock seal(String cellKey, String technology, String mcc, String mnc,
+                                         SignalSeriesCodec.Encoder encoder) {
+        SignalSeriesBlock block = new SignalSeriesBlock();
+        block.cellKey = cellKey;
+        block.technology = technology;
+        block.mcc = mcc;
+        block.mnc = mnc;
+        block.startTimestamp = encoder.getMinTimestamp();
+        block.endTimestamp = encoder.getMaxTimestamp();
+        block.sampleCount = encoder.getCount();
+        block.data = encoder.toByteArray();
+        return block;
+    }
+
+    // Re-encodes the block without the samples inside [fromTimestamp, toTimestamp]; returns null
+    // when nothing is left
+    public SignalSeriesBlock without(long fromTimestamp, long toTimestamp) {
+        SignalSeries series = decode();
+        SignalSeriesCodec.Encoder encoder = new SignalSeriesCodec.Encoder();
+        for (int i = 0; i < series.size(); i++) {
+            long timestamp = series.getTimestamp(i);
+            if (timestamp < fromTimestamp || timestamp > toTimestamp) {
+                encoder.append(timestamp, series.getValue(i));
+            }
+        }
+        if (encoder.getCount() == 0) {
+            return null;
+        }
+        SignalSeriesBlock block = seal(cellKey, technology, mcc, mnc, encoder);
+        block.id = id;
+        return block;
+    }
+}
@@ -0,0 +1,241 @@
+package com.forensics.cellidcollector;
+
+import java.util.Arrays;
+
+// Gorilla-style block encoding for one cell's (timestamp, dBm) samples: timestamps as
+// delta-of-delta in variable-width buckets, values as XOR with the previous value storing only
+// the meaningful bits. A perfectly regular scan with a steady signal costs 2 bits per sample,
+// and typical jittered captures stay under two bytes against ~100 bytes for a cell_data row.
+public final class SignalSeriesCodec {
+    private SignalSeriesCodec() {}
+
+    public static class Encoder {
+        private final BitWriter out = new BitWriter();
+        private int count;
+        private long firstTimestamp;
+        private long minTimestamp;
+        private long maxTimestamp;
+        private long previousTimestamp;
+        private long previousDelta;
+        private int previousValue;
+        private int previousLeading = -1;
+        private int previousTrailing;
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getFirstTimestamp() {
+            return firstTimestamp;
+        }
+
+        public long getMinTimestamp() {
+            return minTimestamp;
+        }
+
+        public long getMaxTimestamp() {
+            return maxTimestamp;
+        }
+
+        public int getSizeInBytes() {
+            return out.byteLength();
+        }
+
+        // False when the next delta-of-delta would not fit the widest bucket; seal and start a new block
+        public boolean canAppend(long timestamp) {
+            if (count < 2) {
+                return count == 0 || fitsInt(timestamp - previousTimestamp);
+            }
+            return fitsInt((timestamp - previousTimestamp) - previousDelta);
+        }
+
+        public void append(long timestamp, int value) {
+            if (count == 0) {
+                out.writeBits(timestamp, 64);
+                out.writeBits(value, 32);
+                firstTimestamp = timestamp;
+                minTimestamp = timestamp;
+                maxTimestamp = timestamp;
+                previousTimestamp = timestamp;
+                previousValue = value;
+                count = 1;
+                return;
+            }
+
+            long delta = timestamp - previousTimestamp;
+            writeDeltaOfDelta(delta - previousDelta);
+            previousDelta = delta;
+            previousTimestamp = timestamp;
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+
+            writeValue(value);
+            count++;
+        }
+
+        private void writeDeltaOfDelta(long dod) {
+            if (dod == 0) {
+                out.writeBit(false);
+            } else if (dod >= -64 && dod <= 63) {
+                out.writeBits(0b10, 2);
+                out.writeBits(dod, 7);
+            } else if (dod >= -256 && dod <= 255) {
+                out.writeBits(0b110, 3);
+                out.writeBits(dod, 9);
+            } else if (dod >= -2048 && dod <= 2047) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(dod, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(dod, 32);
+            }
+        }
+
+        private void writeValue(int value) {
+            int xor = value ^ previousValue;
+            previousValue = value;
+
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+
+            int leading = Integer.numberOfLeadingZeros(xor);
+            int trailing = Integer.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // Meaningful bits fit inside the previous window
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing, 32 - previousLeading - previousTrailing);
+            } else {
+                int length = 32 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                out.writeBits(length - 1, 5);
+                out.writeBits(xor >>> trailing, length);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+
+        public byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private static boolean fitsInt(long value) {
+            return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+        }
+    }
+
+    public static SignalSeries decode(byte[] data, int count) {
+        SignalSeries series = new SignalSeries(count);
+        if (count == 0) {
+            return series;
+        }
+
+        BitReader in = new BitReader(data);
+        long timestamp = in.readBits(64);
+        int value = (int) in.readBits(32);
+        series.add(timestamp, value);
+
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            long dod;
+            if (!in.readBit()) {
+                dod = 0;
+            } else if (!in.readBit()) {
+                dod = in.readSigned(7);
+            } else if (!in.readBit()) {
+                dod = in.readSigned(9);
+            } else if (!in.readBit()) {
+                dod = in.readSigned(12);
+            } else {
+                dod = in.readSigned(32);
+            }
+            delta += dod;
+            timestamp += delta;
+
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int length = (int) in.readBits(5) + 1;
+                    trailing = 32 - leading - length;
+                }
+                int meaningful = (int) in.readBits(32 - leading - trailing);
+                value ^= meaningful << trailing;
+            }
+            series.add(timestamp, value);
+        }
+        return series;
+    }
+
+    static class BitWriter {
+        private byte[] buffer = new byte[64];
+        private long bitLength;
+
+        void writeBit(boolean bit) {
+            ensureCapacity(bitLength + 1);
+            if (bit) {
+                buffer[(int) (bitLength >>> 3)] |= (byte) (0x80 >>> (bitLength & 7));
+            }
+            bitLength++;
+        }
+
+        // Writes the low `bits` bits of value, most significant first
+        void writeBits(long value, int bits) {
+            ensureCapacity(bitLength + bits);
+            for (int i = bits - 1; i >= 0; i--) {
+                if (((value >>> i) & 1) != 0) {
+                    buffer[(int) (bitLength >>> 3)] |= (byte) (0x80 >>> (bitLength & 7));
+                }
+                bitLength++;
+            }
+        }
+
+        int byteLength() {
+            return (int) ((bitLength + 7) >>> 3);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, byteLength());
+        }
+
+        private void ensureCapacity(long bits) {
+            int bytes = (int) ((bits + 7) >>> 3);
+            if (bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(bytes, buffer.length * 2));
+            }
+        }
+    }
+
+    static class BitReader {
+        private final byte[] data;
+        private long position;
+
+        BitReader(byte[] data) {
+            this.data = data;
+        }
+
+        boolean readBit() {
+            boolean bit = (data[(int) (position >>> 3)] & (0x80 >>> (position & 7))) != 0;
+            position++;
+            return bit;
+        }
+
+        long readBits(int bits) {
+            long value = 0;
+            for (int i = 0; i < bits; i++) {
+                value = (value << 1) | (readBit() ? 1 : 0);
+            }
+            return value;
+        }
+
+        long readSigned(int bits) {
+            long value = readBits(bits);
+            // Sign-extend two's complement values of the given width
+            return (value << (64 - bits)) >> (64 - bits);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.forensics.cellidcollector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Per-cell storage of sealed signal series blocks, to see what the compressed history costs
+public class SignalSeriesReport {
+    private static class CellSeries {
+        final String cellKey;
+        int blocks;
+        long samples;
+        long bytes;
+        long firstTimestamp = Long.MAX_VALUE;
+        long lastTimestamp = Long.MIN_VALUE;
+
+        CellSeries(String cellKey) {
+            this.cellKey = cellKey;
+        }
+    }
+
+    private final Map<String, CellSeries> cells = new LinkedHashMap<>();
+
+    public boolean accept(SignalSeriesBlock block) {
+        CellSeries cell = cells.computeIfAbsent(block.cellKey, CellSeries::new);
+        cell.blocks++;
+        cell.samples += block.sampleCount;
+        cell.bytes += block.data.length;
+        cell.firstTimestamp = Math.min(cell.firstTimestamp, block.startTimestamp);
+        cell.lastTimestamp = Math.max(cell.lastTimestamp, block.endTimestamp);
+        return true;
+    }
+
+    public String format() {
+        List<CellSeries> sorted = new ArrayList<>(cells.values());
+        sorted.sort((a, b) -> Long.compare(b.samples, a.samples));
+
+        StringBuilder report = new StringBuilder();
+        report.append("Cell                                 Blocks   Samples     Bytes  Bytes/sample  Span (h)\n");
+        long blocks = 0;
+        long samples = 0;
+        long bytes = 0;
+        for (CellSeries cell : sorted) {
+            report.append(String.format(Locale.US, "%-35s  %6d  %8d  %8d  %12.2f  %8.1f\n", cell.cellKey,
+                cell.blocks, cell.samples, cell.bytes, (double) cell.bytes / cell.samples,
+                (cell.lastTimestamp - cell.firstTimestamp) / 3600000.0));
+            blocks += cell.blocks;
+            samples += cell.samples;
+            bytes += cell.bytes;
+        }
+        report.append(String.format(Locale.US, "%-35s  %6d  %8d  %8d  %12.2f\n", sorted.size() + " cells",
+            blocks, samples, bytes, samples > 0 ? (double) bytes / samples : 0));
+        return report.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.forensics.cellidcollector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Site table for a capture, built from observations so it also covers databases written
+// before site rows were stored
+public class SiteReport {
+    private final CellSite.Accumulator sites = new CellSite.Accumulator();
+
+    public void accept(CellData cellData) {
+        sites.add(cellData);
+    }
+
+    public List<CellSite> getSites() {
+        List<CellSite> sorted = new ArrayList<>(sites.getSites());
+        sorted.sort((a, b) -> Long.compare(b.sampleCount, a.sampleCount));
+        return sorted;
+    }
+
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        report.append("Site                         Samples  Sectors          Carriers         PCIs             Position\n");
+        for (CellSite site : getSites()) {
+            report.append(String.format(Locale.US, "%-27s  %7d  %-15s  %-15s  %-15s  ", site.getKey(),
+                site.sampleCount, CellSite.joinList(site.sectors), CellSite.joinList(site.carriers),
+                CellSite.joinList(site.pcis)));
+            if (site.hasPosition()) {
+                report.append(String.format(Locale.US, "%.6f,%.6f (%d fixes)", site.getLatitude(),
+                    site.getLongitude(), site.fixCount));
+            } else {
+                report.append('-');
+            }
+            report.append('\n');
+        }
+        return report.toString();
+    }
+}
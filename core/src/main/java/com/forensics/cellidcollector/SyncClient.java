@@ -0,0 +1,67 @@
+package com.forensics.cellidcollector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+// Posts sync chunks to the collection endpoint with plain HttpURLConnection, which behaves the
+// same on Android and on a workstation JVM
+public class SyncClient {
+    public static final String HEADER_DEVICE_ID = "X-Device-Id";
+    public static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    private final URL endpoint;
+    private final String deviceId;
+
+    public SyncClient(String endpoint, String deviceId) throws IOException {
+        this.endpoint = new URL(endpoint);
+        this.deviceId = deviceId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    // Returns the HTTP status; transport failures surface as IOException
+    public int send(byte[] body, String idempotencyKey) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", SyncPayload.CONTENT_TYPE);
+            connection.setRequestProperty("Content-Encoding", "gzip");
+            connection.setRequestProperty(HEADER_DEVICE_ID, deviceId);
+            connection.setRequestProperty(HEADER_IDEMPOTENCY_KEY, idempotencyKey);
+
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int status = connection.getResponseCode();
+            drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            return status;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Reading the body to the end lets the connection be reused for the next chunk
+    private static void drain(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[1024];
+            while (stream.read(buffer) != -1) {
+                // Discard
+            }
+        }
+    }
+}
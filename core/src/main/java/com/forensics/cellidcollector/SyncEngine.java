@@ -0,0 +1,169 @@
+package com.forensics.cellidcollector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Ships observations past the high-water mark in id order, one chunk at a time. The mark only
+// advances after the server accepted a chunk, so an interrupted run resumes where it stopped
+// and a resent chunk carries the same idempotency key.
+public class SyncEngine {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long DEFAULT_INITIAL_BACKOFF_MS = 2000;
+    private static final long MAX_BACKOFF_MS = 10 * 60 * 1000L;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long GATE_POLL_MS = 500;
+
+    public interface Checkpoint {
+        long load();
+
+        void save(long highWaterMark);
+    }
+
+    // Lets the host hold sync back while capture work is pending
+    public interface Gate {
+        boolean isIdle();
+    }
+
+    public static class Result {
+        public int chunks;
+        public int observations;
+        public long highWaterMark;
+        public boolean caughtUp;
+        public String failure;
+
+        @Override
+        public String toString() {
+            return "SyncResult{chunks=" + chunks + ", observations=" + observations + ", mark=" + highWaterMark +
+                (caughtUp ? ", caught up" : "") + (failure != null ? ", failure=" + failure : "") + "}";
+        }
+    }
+
+    private final CellDataStore store;
+    private final SyncClient client;
+    private final Checkpoint checkpoint;
+    private final Gate gate;
+    private final Random random = new Random();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long chunkPauseMs = 0;
+    private int maxChunks = Integer.MAX_VALUE;
+    private long initialBackoffMs = DEFAULT_INITIAL_BACKOFF_MS;
+
+    public SyncEngine(CellDataStore store, SyncClient client, Checkpoint checkpoint, Gate gate) {
+        this.store = store;
+        this.client = client;
+        this.checkpoint = checkpoint;
+        this.gate = gate;
+    }
+
+    public SyncEngine setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public SyncEngine setChunkPauseMs(long chunkPauseMs) {
+        this.chunkPauseMs = chunkPauseMs;
+        return this;
+    }
+
+    public SyncEngine setMaxChunks(int maxChunks) {
+        this.maxChunks = maxChunks;
+        return this;
+    }
+
+    public SyncEngine setInitialBackoffMs(long initialBackoffMs) {
+        this.initialBackoffMs = initialBackoffMs;
+        return this;
+    }
+
+    public Result run() throws InterruptedException {
+        Result result = new Result();
+        long mark = checkpoint.load();
+        List<CellData> batch = new ArrayList<>(batchSize);
+
+        while (result.chunks < maxChunks) {
+            waitForIdle();
+            batch.clear();
+            try {
+                store.scanObservationsAfterId(mark, batchSize, batch::add);
+            } catch (IllegalStateException e) {
+                result.failure = e.toString();
+                break;
+            }
+            if (batch.isEmpty()) {
+                result.caughtUp = true;
+                break;
+            }
+
+            byte[] body;
+            try {
+                body = SyncPayload.encode(batch);
+            } catch (IOException e) {
+                result.failure = e.toString();
+                break;
+            }
+
+            String failure = sendWithRetry(body, SyncPayload.idempotencyKey(client.getDeviceId(), batch));
+            if (failure != null) {
+                result.failure = failure;
+                break;
+            }
+
+            mark = batch.get(batch.size() - 1).id;
+            checkpoint.save(mark);
+            result.chunks++;
+            result.observations += batch.size();
+
+            if (batch.size() < batchSize) {
+                result.caughtUp = true;
+                break;
+            }
+            if (chunkPauseMs > 0) {
+                Thread.sleep(chunkPauseMs);
+            }
+        }
+
+        result.highWaterMark = mark;
+        return result;
+    }
+
+    private void waitForIdle() throws InterruptedException {
+        while (gate != null && !gate.isIdle()) {
+            Thread.sleep(GATE_POLL_MS);
+        }
+    }
+
+    // Returns null once the server accepted the chunk, otherwise the last failure
+    private String sendWithRetry(byte[] body, String idempotencyKey) throws InterruptedException {
+        long backoff = initialBackoffMs;
+        String failure = null;
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                int status = client.send(body, idempotencyKey);
+                // 409: the server already holds this chunk from an earlier attempt
+                if ((status >= 200 && status < 300) || status == 409) {
+                    return null;
+                }
+                failure = "HTTP " + status;
+                if (!isRetryable(status)) {
+                    return failure;
+                }
+            } catch (IOException e) {
+                failure = e.toString();
+            }
+
+            if (attempt < MAX_ATTEMPTS) {
+                // Full jitter keeps a fleet from retrying in lockstep after an outage
+                Thread.sleep((long) (random.nextDouble() * backoff));
+                backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+            }
+        }
+        return failure;
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+}
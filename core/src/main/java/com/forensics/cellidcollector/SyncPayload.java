@@ -0,0 +1,76 @@
+package com.forensics.cellidcollector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+// One upload chunk: gzip-compressed newline-delimited JSON, one observation per line. The local
+// _id travels with every row so the server can drop rows it already holds.
+public final class SyncPayload {
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private SyncPayload() {}
+
+    public static byte[] encode(List<CellData> batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 64);
+        StringBuilder line = new StringBuilder(512);
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            for (CellData cellData : batch) {
+                appendObservation(line, cellData);
+                out.append(line).append('\n');
+                line.setLength(0);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // Chunks are keyed by their id range so a retried upload of the same rows is recognizable
+    public static String idempotencyKey(String deviceId, List<CellData> batch) {
+        return deviceId + ":" + batch.get(0).id + "-" + batch.get(batch.size() - 1).id;
+    }
+
+    private static void appendObservation(StringBuilder sb, CellData cellData) {
+        sb.append("{\"id\":").append(cellData.id);
+        sb.append(",\"timestamp\":").append(cellData.timestamp);
+        sb.append(",\"technology\":");
+        JsonStrings.append(sb, cellData.technology);
+        sb.append(",\"cellId\":");
+        JsonStrings.append(sb, cellData.cellId);
+        sb.append(",\"lac\":");
+        JsonStrings.append(sb, cellData.lac);
+        sb.append(",\"mcc\":");
+        JsonStrings.append(sb, cellData.mcc);
+        sb.append(",\"mnc\":");
+        JsonStrings.append(sb, cellData.mnc);
+        sb.append(",\"signalStrength\":").append(cellData.signalStrength);
+        sb.append(",\"isRegistered\":").append(cellData.isRegistered);
+        if (cellData.hasLocation()) {
+            sb.append(",\"latitude\":").append(cellData.latitude);
+            sb.append(",\"longitude\":").append(cellData.longitude);
+            sb.append(",\"accuracy\":").append(cellData.accuracy);
+        }
+        appendOptional(sb, "pci", cellData.pci);
+        appendOptional(sb, "psc", cellData.psc);
+        appendOptional(sb, "bsic", cellData.bsic);
+        appendOptional(sb, "earfcn", cellData.earfcn);
+        appendOptional(sb, "uarfcn", cellData.uarfcn);
+        appendOptional(sb, "arfcn", cellData.arfcn);
+        appendOptional(sb, "nrarfcn", cellData.nrarfcn);
+        appendOptional(sb, "timingAdvance", cellData.timingAdvance);
+        appendOptional(sb, "simSlot", cellData.simSlot);
+        sb.append(",\"additionalInfo\":");
+        JsonStrings.append(sb, cellData.additionalInfo);
+        sb.append('}');
+    }
+
+    // Radio parameters use -1 for "not reported"; those are left out
+    private static void appendOptional(StringBuilder sb, String name, int value) {
+        if (value >= 0) {
+            sb.append(",\"").append(name).append("\":").append(value);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.forensics.cellidcollector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Inclusive [fromTimestamp, toTimestamp] slice of a capture, scanned independently of its neighbours
+public class TimePartition {
+    public final long fromTimestamp;
+    public final long toTimestamp;
+
+    public TimePartition(long fromTimestamp, long toTimestamp) {
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+    }
+
+    // Splits the range into at most maxPartitions slices whose boundaries fall on multiples of
+    // alignMs, so per-bucket aggregates never straddle two partitions
+    public static List<TimePartition> split(long fromTimestamp, long toTimestamp, long alignMs, int maxPartitions) {
+        List<TimePartition> partitions = new ArrayList<>();
+        if (toTimestamp < fromTimestamp) {
+            return partitions;
+        }
+
+        // Measured from the aligned start so a short first slice does not add an extra partition
+        long span = toTimestamp - Math.floorDiv(fromTimestamp, alignMs) * alignMs + 1;
+        long size = Math.max(alignMs, (span + maxPartitions - 1) / maxPartitions);
+        size = (size + alignMs - 1) / alignMs * alignMs;
+
+        long start = fromTimestamp;
+        while (start <= toTimestamp) {
+            long boundary = Math.floorDiv(start, alignMs) * alignMs + size;
+            long end = Math.min(toTimestamp, boundary - 1);
+            partitions.add(new TimePartition(start, end));
+            if (end == toTimestamp) {
+                break;
+            }
+            start = end + 1;
+        }
+        return partitions;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + fromTimestamp + ", " + toTimestamp + "]";
+    }
+}
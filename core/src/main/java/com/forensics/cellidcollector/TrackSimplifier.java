@@ -0,0 +1,149 @@
+package com.forensics.cellidcollector;
+
+// Streaming Douglas-Peucker: points are buffered into fixed windows and each full window is
+// simplified on its own. A window's last point is always kept and emitted, then opens the next
+// window so the route stays connected, and memory is bounded by the window size whatever the
+// route length.
+public class TrackSimplifier {
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    public interface Sink {
+        void onPoint(double latitude, double longitude, long timestamp);
+    }
+
+    private final double toleranceMeters;
+    private final Sink sink;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] timestamps;
+    private final boolean[] keep;
+    private final int[] stack;
+    private int size = 0;
+    private boolean emittedFirst = false;
+    private int inputCount = 0;
+    private int outputCount = 0;
+
+    public TrackSimplifier(double toleranceMeters, int windowSize, Sink sink) {
+        if (windowSize < 3) {
+            throw new IllegalArgumentException("windowSize must be at least 3");
+        }
+        this.toleranceMeters = toleranceMeters;
+        this.sink = sink;
+        latitudes = new double[windowSize];
+        longitudes = new double[windowSize];
+        timestamps = new long[windowSize];
+        keep = new boolean[windowSize];
+        stack = new int[windowSize * 2];
+    }
+
+    public void add(double latitude, double longitude, long timestamp) {
+        if (size > 0 && latitudes[size - 1] == latitude && longitudes[size - 1] == longitude) {
+            // Stationary fixes add nothing to the line
+            return;
+        }
+        inputCount++;
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        timestamps[size] = timestamp;
+        size++;
+
+        if (size == latitudes.length) {
+            simplifyWindow();
+            emitWindow();
+            // Carry the window's last point over as the anchor of the next one
+            latitudes[0] = latitudes[size - 1];
+            longitudes[0] = longitudes[size - 1];
+            timestamps[0] = timestamps[size - 1];
+            size = 1;
+        }
+    }
+
+    public void finish() {
+        // A lone anchor left by a full window was emitted as that window's last point
+        if (size == 0 || (size == 1 && emittedFirst)) {
+            size = 0;
+            return;
+        }
+        simplifyWindow();
+        emitWindow();
+        size = 0;
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    public int getOutputCount() {
+        return outputCount;
+    }
+
+    // Emits the window's kept points; the anchor at index 0 was already emitted as the previous
+    // window's last point, so it is only emitted for the first window
+    private void emitWindow() {
+        for (int i = emittedFirst ? 1 : 0; i < size; i++) {
+            if (keep[i]) {
+                sink.onPoint(latitudes[i], longitudes[i], timestamps[i]);
+                outputCount++;
+            }
+        }
+        emittedFirst = true;
+    }
+
+    // Iterative Douglas-Peucker over the buffered window, marking survivors in keep[]
+    private void simplifyWindow() {
+        for (int i = 0; i < size; i++) {
+            keep[i] = false;
+        }
+        keep[0] = true;
+        keep[size - 1] = true;
+        if (size < 3) {
+            return;
+        }
+
+        // Equirectangular projection around the window's first point is accurate enough at route scale
+        double cosLatitude = Math.cos(Math.toRadians(latitudes[0]));
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            if (last - first < 2) {
+                continue;
+            }
+
+            double ax = longitudes[first] * cosLatitude;
+            double ay = latitudes[first];
+            double bx = longitudes[last] * cosLatitude;
+            double by = latitudes[last];
+            double maxDistance = -1;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistance(longitudes[i] * cosLatitude, latitudes[i], ax, ay, bx, by);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    index = i;
+                }
+            }
+
+            if (maxDistance * METERS_PER_DEGREE > toleranceMeters) {
+                keep[index] = true;
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}
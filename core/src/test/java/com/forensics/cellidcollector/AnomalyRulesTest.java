@@ -0,0 +1,78 @@
+package com.forensics.cellidcollector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AnomalyRulesTest {
+    private static CellData cell(String technology, String lac, String cellId, double latitude, long timestamp) {
+        CellData cellData = new CellData();
+        cellData.technology = technology;
+        cellData.mcc = "404";
+        cellData.mnc = "45";
+        cellData.lac = lac;
+        cellData.cellId = cellId;
+        cellData.latitude = latitude;
+        cellData.longitude = 78.5;
+        cellData.accuracy = 10;
+        cellData.signalStrength = -80;
+        cellData.timestamp = timestamp;
+        return cellData;
+    }
+
+    private static List<String> rulesFired(AnomalyDetector detector, List<CellData> observations) {
+        List<String> rules = new ArrayList<>();
+        for (CellData cellData : observations) {
+            for (AnomalyAlert alert : detector.process(cellData)) {
+                rules.add(alert.rule);
+            }
+        }
+        return rules;
+    }
+
+    @Test
+    public void gsmAndUmtsKeysIncludeLac() {
+        assertNotEquals(AnomalyRules.identityKey(cell("GSM", "101", "4242", 17.4, 0)),
+            AnomalyRules.identityKey(cell("GSM", "202", "4242", 17.4, 0)));
+        assertNotEquals(AnomalyRules.identityKey(cell("WCDMA", "101", "4242", 17.4, 0)),
+            AnomalyRules.identityKey(cell("WCDMA", "202", "4242", 17.4, 0)));
+        assertEquals(AnomalyRules.identityKey(cell("LTE", "101", "25601537", 17.4, 0)),
+            AnomalyRules.identityKey(cell("LTE", "202", "25601537", 17.4, 0)));
+    }
+
+    @Test
+    public void sameGsmCidInDifferentLacsIsTwoCells() {
+        // Two distinct cells 100 km apart that happen to share a CID
+        List<CellData> observations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            observations.add(cell("GSM", "101", "4242", 17.4, i * 1000L));
+            observations.add(cell("GSM", "202", "4242", 18.3, i * 1000L + 500));
+        }
+        assertTrue(rulesFired(AnomalyDetector.createDefault(), observations).isEmpty());
+    }
+
+    @Test
+    public void gsmCidSeenFarAwayInSameLacTeleports() {
+        List<CellData> observations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            observations.add(cell("GSM", "101", "4242", 17.4, i * 1000L));
+        }
+        observations.add(cell("GSM", "101", "4242", 18.3, 10_000L));
+        assertEquals(1, rulesFired(AnomalyDetector.createDefault(), observations).size());
+    }
+
+    @Test
+    public void lteCellInNewTrackingAreaIsFlagged() {
+        List<CellData> observations = new ArrayList<>();
+        observations.add(cell("LTE", "4501", "25601537", 17.4, 0));
+        observations.add(cell("LTE", "4502", "25601537", 17.4, 1000L));
+        List<String> rules = rulesFired(AnomalyDetector.createDefault(), observations);
+        assertEquals(1, rules.size());
+        assertEquals(AnomalyRules.RULE_LAC_CHANGE, rules.get(0));
+    }
+}
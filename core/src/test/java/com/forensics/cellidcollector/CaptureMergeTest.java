@@ -0,0 +1,104 @@
+package com.forensics.cellidcollector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+// Partial results merged across partitions must equal a single pass over the same rows
+public class CaptureMergeTest {
+    private static final long BUCKET = 15 * 60 * 1000L;
+
+    private static List<CellData> observations() {
+        List<CellData> rows = new ArrayList<>();
+        String[] technologies = {"LTE", "NR", "GSM", "WCDMA"};
+        for (int i = 0; i < 400; i++) {
+            CellData cellData = new CellData();
+            cellData.id = i + 1;
+            cellData.timestamp = 1_700_000_000_000L + i * 37_000L;
+            cellData.technology = technologies[i % technologies.length];
+            cellData.cellId = String.valueOf(1000 + i % 23);
+            cellData.lac = String.valueOf(10 + i % 3);
+            cellData.mcc = i % 5 == 0 ? "310" : "404";
+            cellData.mnc = i % 5 == 0 ? "260" : "45";
+            cellData.signalStrength = i % 11 == 0 ? Integer.MAX_VALUE : -60 - i % 50;
+            cellData.isRegistered = i % 7 == 0;
+            if (i % 3 == 0) {
+                cellData.latitude = 17.4;
+                cellData.longitude = 78.5;
+            }
+            rows.add(cellData);
+        }
+        return rows;
+    }
+
+    @Test
+    public void summaryMergeMatchesSinglePass() {
+        List<CellData> rows = observations();
+        CaptureSummary whole = new CaptureSummary();
+        CaptureSummary first = new CaptureSummary();
+        CaptureSummary second = new CaptureSummary();
+        for (int i = 0; i < rows.size(); i++) {
+            whole.accept(rows.get(i));
+            (i < 150 ? first : second).accept(rows.get(i));
+        }
+
+        CaptureSummary merged = first.merge(second);
+        assertEquals(whole.observations, merged.observations);
+        assertEquals(whole.registered, merged.registered);
+        assertEquals(whole.withLocation, merged.withLocation);
+        assertEquals(whole.firstTimestamp, merged.firstTimestamp);
+        assertEquals(whole.lastTimestamp, merged.lastTimestamp);
+        assertEquals(whole.signalCount, merged.signalCount);
+        assertEquals(whole.signalSum, merged.signalSum);
+        assertEquals(whole.bestSignal, merged.bestSignal);
+        assertEquals(whole.byTechnology, merged.byTechnology);
+        assertEquals(whole.byProvider, merged.byProvider);
+        assertEquals(whole.mccs, merged.mccs);
+        assertEquals(whole.cells, merged.cells);
+        assertEquals(whole.servingCells, merged.servingCells);
+        assertEquals(whole.format(), merged.format());
+    }
+
+    @Test
+    public void mergingEmptySummaryChangesNothing() {
+        CaptureSummary summary = new CaptureSummary();
+        for (CellData cellData : observations()) {
+            summary.accept(cellData);
+        }
+        String before = summary.format();
+        assertEquals(before, summary.merge(new CaptureSummary()).format());
+        assertEquals(before, new CaptureSummary().merge(summary).format());
+    }
+
+    @Test
+    public void timelineMergeMatchesSinglePassIncludingSharedBucket() {
+        List<CellData> rows = observations();
+        CaptureTimeline whole = new CaptureTimeline(BUCKET);
+        CaptureTimeline first = new CaptureTimeline(BUCKET);
+        CaptureTimeline second = new CaptureTimeline(BUCKET);
+        // Split mid-bucket so both halves contribute to the same bucket
+        for (int i = 0; i < rows.size(); i++) {
+            whole.accept(rows.get(i));
+            (i < 205 ? first : second).accept(rows.get(i));
+        }
+
+        CaptureTimeline merged = first.merge(second);
+        assertEquals(whole.buckets.keySet(), merged.buckets.keySet());
+        for (Map.Entry<Long, CaptureTimeline.Bucket> entry : whole.buckets.entrySet()) {
+            CaptureTimeline.Bucket expected = entry.getValue();
+            CaptureTimeline.Bucket actual = merged.buckets.get(entry.getKey());
+            assertEquals(expected.observations, actual.observations);
+            assertEquals(expected.registered, actual.registered);
+            assertEquals(expected.signalCount, actual.signalCount);
+            assertEquals(expected.signalSum, actual.signalSum);
+            assertEquals(expected.cells, actual.cells);
+            assertEquals(expected.servingCells, actual.servingCells);
+            assertEquals(expected.technologies, actual.technologies);
+        }
+        assertEquals(whole.format(), merged.format());
+    }
+}
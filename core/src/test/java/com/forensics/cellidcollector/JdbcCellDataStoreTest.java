@@ -0,0 +1,223 @@
+package com.forensics.cellidcollector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+// Runs the store against a small cellid_forensics.db fixture written with the app's cell_data schema
+public class JdbcCellDataStoreTest {
+    private static final long BASE_TIMESTAMP = 1_700_000_000_000L;
+    private static final int ROWS = 25;
+    private static final String CELL_KEY = "LTE:404:45:4501:25601537";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File database;
+    private JdbcCellDataStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        database = folder.newFile("cellid_forensics.db");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getPath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE cell_data (_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "timestamp INTEGER NOT NULL, technology TEXT NOT NULL, cell_id TEXT NOT NULL, lac_tac TEXT, " +
+                "mcc TEXT, mnc TEXT, signal_strength INTEGER, is_registered INTEGER DEFAULT 0, " +
+                "latitude REAL DEFAULT 0, longitude REAL DEFAULT 0, accuracy REAL DEFAULT 0, " +
+                "pci INTEGER DEFAULT -1, earfcn INTEGER DEFAULT -1, sim_slot INTEGER DEFAULT -1, " +
+                "additional_info TEXT)");
+            // Rows are inserted out of timestamp order; scans must come back ordered by time then _id
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO cell_data " +
+                    "(timestamp, technology, cell_id, lac_tac, mcc, mnc, signal_strength, is_registered, " +
+                    "latitude, longitude, pci, earfcn) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = ROWS - 1; i >= 0; i--) {
+                    insert.setLong(1, BASE_TIMESTAMP + i * 1000L);
+                    insert.setString(2, "LTE");
+                    insert.setString(3, String.valueOf(25601537 + i % 3));
+                    insert.setString(4, "4501");
+                    insert.setString(5, "404");
+                    insert.setString(6, "45");
+                    insert.setInt(7, -80 - i);
+                    insert.setInt(8, i % 5 == 0 ? 1 : 0);
+                    insert.setDouble(9, i % 2 == 0 ? 17.4 + i * 0.001 : 0);
+                    insert.setDouble(10, i % 2 == 0 ? 78.5 : 0);
+                    insert.setInt(11, 100 + i % 3);
+                    insert.setInt(12, 1850);
+                    insert.executeUpdate();
+                }
+            }
+        }
+        store = new JdbcCellDataStore(database.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void countsAndBounds() {
+        assertEquals(ROWS, store.getTotalCellCount());
+        assertEquals(BASE_TIMESTAMP, store.getFirstTimestamp());
+        assertEquals(BASE_TIMESTAMP + (ROWS - 1) * 1000L, store.getLastTimestamp());
+    }
+
+    @Test
+    public void scansInclusiveWindowInTimestampOrder() {
+        List<CellData> rows = new ArrayList<>();
+        store.scanObservations(BASE_TIMESTAMP + 5000, BASE_TIMESTAMP + 9000, false, rows::add);
+
+        assertEquals(5, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(BASE_TIMESTAMP + (5 + i) * 1000L, rows.get(i).timestamp);
+        }
+        CellData first = rows.get(0);
+        assertEquals("LTE", first.technology);
+        assertEquals("404", first.mcc);
+        assertEquals(-85, first.signalStrength);
+        assertTrue(first.isRegistered);
+        assertEquals(1850, first.earfcn);
+    }
+
+    @Test
+    public void missingColumnsKeepDefaults() {
+        List<CellData> rows = new ArrayList<>();
+        store.scanObservations(Long.MIN_VALUE, Long.MAX_VALUE, false, rows::add);
+
+        // The fixture predates timing advance, NR and reference columns
+        CellData cellData = rows.get(0);
+        assertEquals(-1, cellData.nrarfcn);
+        assertEquals(-1, cellData.timingAdvance);
+        assertEquals(CellData.UNKNOWN_SUBSCRIPTION, cellData.subscriptionId);
+        assertEquals(CellData.REFERENCE_UNCHECKED, cellData.referenceStatus);
+    }
+
+    @Test
+    public void registeredOnlyFiltersRows() {
+        List<CellData> rows = new ArrayList<>();
+        store.scanObservations(Long.MIN_VALUE, Long.MAX_VALUE, true, rows::add);
+
+        assertEquals(5, rows.size());
+        for (CellData cellData : rows) {
+            assertTrue(cellData.isRegistered);
+        }
+    }
+
+    @Test
+    public void visitorCanStopScan() {
+        int[] visited = {0};
+        store.scanObservations(Long.MIN_VALUE, Long.MAX_VALUE, false, cellData -> ++visited[0] < 3);
+        assertEquals(3, visited[0]);
+    }
+
+    @Test
+    public void scansAfterIdInIdOrder() {
+        List<CellData> rows = new ArrayList<>();
+        store.scanObservationsAfterId(10, 7, rows::add);
+
+        assertEquals(7, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(11 + i, rows.get(i).id);
+        }
+    }
+
+    @Test
+    public void columnScanFillsPagesAndMatchesRowScan() {
+        List<CellData> rows = new ArrayList<>();
+        store.scanObservations(Long.MIN_VALUE, Long.MAX_VALUE, false, rows::add);
+
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Long> timestamps = new ArrayList<>();
+        List<Integer> signals = new ArrayList<>();
+        int[] fixes = {0};
+        store.scanObservationColumns(Long.MIN_VALUE, Long.MAX_VALUE, new ObservationColumns(10), page -> {
+            pageSizes.add(page.size);
+            for (int i = 0; i < page.size; i++) {
+                timestamps.add(page.timestamps[i]);
+                signals.add(page.signalStrengths[i]);
+                if (page.hasLocation(i)) {
+                    fixes[0]++;
+                }
+            }
+            return true;
+        });
+
+        assertEquals(3, pageSizes.size());
+        assertEquals(Integer.valueOf(5), pageSizes.get(2));
+        assertEquals(rows.size(), timestamps.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(rows.get(i).timestamp, (long) timestamps.get(i));
+            assertEquals(rows.get(i).signalStrength, (int) signals.get(i));
+        }
+        assertEquals((ROWS + 1) / 2, fixes[0]);
+    }
+
+    @Test
+    public void signalSeriesJoinsSealedBlocksWithUnsealedTail() throws Exception {
+        // Rows went in newest first, so _id is ROWS - i; the block holds the cell's samples up to i = 12
+        SignalSeriesCodec.Encoder encoder = new SignalSeriesCodec.Encoder();
+        for (int i = 0; i <= 12; i += 3) {
+            encoder.append(BASE_TIMESTAMP + i * 1000L, -80 - i);
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getPath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE signal_series (_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "cell_key TEXT NOT NULL, technology TEXT, mcc TEXT, mnc TEXT, start_ts INTEGER NOT NULL, " +
+                "end_ts INTEGER NOT NULL, sample_count INTEGER NOT NULL, data BLOB NOT NULL)");
+            statement.execute("CREATE TABLE metadata (key TEXT PRIMARY KEY, value TEXT)");
+            // Row i = 24 (_id 1) is below the mark, so the app had already sealed it elsewhere
+            statement.execute("INSERT INTO metadata (key, value) VALUES ('signal_series_mark', '4')");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO signal_series " +
+                    "(cell_key, technology, mcc, mnc, start_ts, end_ts, sample_count, data) " +
+                    "VALUES (?, 'LTE', '404', '45', ?, ?, ?, ?)")) {
+                insert.setString(1, CELL_KEY);
+                insert.setLong(2, encoder.getMinTimestamp());
+                insert.setLong(3, encoder.getMaxTimestamp());
+                insert.setInt(4, encoder.getCount());
+                insert.setBytes(5, encoder.toByteArray());
+                insert.executeUpdate();
+            }
+        }
+
+        SignalSeries series = store.readSignalSeries(CELL_KEY, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(8, series.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(BASE_TIMESTAMP + i * 3000L, series.getTimestamp(i));
+            assertEquals(-80 - i * 3, series.getValue(i));
+        }
+
+        SignalSeries window = store.readSignalSeries(CELL_KEY, BASE_TIMESTAMP + 6000, BASE_TIMESTAMP + 15000);
+        assertEquals(4, window.size());
+
+        SignalSeriesReport report = new SignalSeriesReport();
+        store.scanSignalSeriesBlocks(null, Long.MIN_VALUE, Long.MAX_VALUE, report::accept);
+        assertTrue(report.format().startsWith("Cell"));
+        assertTrue(report.format().contains(CELL_KEY));
+    }
+
+    @Test
+    public void signalSeriesWithoutBlocksReadsObservations() {
+        int[] blocks = {0};
+        store.scanSignalSeriesBlocks(null, Long.MIN_VALUE, Long.MAX_VALUE, block -> ++blocks[0] > 0);
+        assertEquals(0, blocks[0]);
+
+        SignalSeries series = store.readSignalSeries(CELL_KEY, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(9, series.size());
+        assertEquals(BASE_TIMESTAMP, series.getTimestamp(0));
+        assertEquals(-104, series.getValue(8));
+    }
+}
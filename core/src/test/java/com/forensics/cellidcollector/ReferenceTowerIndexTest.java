@@ -0,0 +1,127 @@
+package com.forensics.cellidcollector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReferenceTowerIndexTest {
+    private static final String HEADER =
+        "radio,mcc,net,area,cell,unit,lon,lat,range,samples,changeable,created,updated,averageSignal";
+    private static final int TOWERS = 200;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String row(int i) {
+        String radio = i % 3 == 0 ? "LTE" : i % 3 == 1 ? "GSM" : "UMTS";
+        return radio + ",404," + (40 + i % 4) + "," + (1000 + i % 7) + "," + (25601537 + i) + ",0," +
+            (78.0f + i * 0.001f) + "," + (17.0f + i * 0.001f) + "," + (500 + i) + ",12,1," +
+            (1600000000 + i) + ",1600000500,0";
+    }
+
+    // Rows are shuffled and mixed with rows the importer must skip
+    private File writeCsv(boolean gzip) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < TOWERS; i++) {
+            lines.add(row(i));
+        }
+        lines.add("CDMA,310,0,1,2,0,1.0,1.0,100,1,1,1600000000,1600000000,0");
+        lines.add("LTE,404,45,not-a-number,1,0,1.0,1.0,100,1,1,1600000000,1600000000,0");
+        lines.add("LTE,404,45");
+        Collections.shuffle(lines, new Random(7));
+        lines.add(0, HEADER);
+
+        File csv = folder.newFile(gzip ? "cells.csv.gz" : "cells.csv");
+        OutputStream out = new FileOutputStream(csv);
+        if (gzip) {
+            out = new GZIPOutputStream(out);
+        }
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.US_ASCII)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        return csv;
+    }
+
+    private void assertImportAndLookup(boolean gzip) throws IOException {
+        File index = new File(folder.getRoot(), "towers.idx");
+        // A chunk far smaller than the input forces several spilled runs through the merge
+        long written = new ReferenceTowerImporter(folder.newFolder(), 16).importCsv(writeCsv(gzip), index);
+        assertEquals(TOWERS, written);
+
+        try (ReferenceTowerIndex towers = ReferenceTowerIndex.open(index)) {
+            assertEquals(TOWERS, towers.size());
+            for (int i = 0; i < TOWERS; i++) {
+                int radio = i % 3 == 0 ? ReferenceTower.RADIO_LTE : i % 3 == 1 ? ReferenceTower.RADIO_GSM :
+                    ReferenceTower.RADIO_UMTS;
+                ReferenceTower tower = towers.lookup(radio, 404, 40 + i % 4, 1000 + i % 7, 25601537 + i);
+                assertNotNull("tower " + i, tower);
+                assertEquals(17.0f + i * 0.001f, tower.latitude, 1e-4);
+                assertEquals(78.0f + i * 0.001f, tower.longitude, 1e-4);
+                assertEquals(500 + i, tower.range);
+                assertEquals(1600000000L + i, tower.firstSeen);
+            }
+
+            // Right cell in the wrong area, and an unknown cell
+            assertNull(towers.lookup(ReferenceTower.RADIO_LTE, 404, 40, 1001, 25601537));
+            assertNull(towers.lookup(ReferenceTower.RADIO_LTE, 404, 40, 1000, 99999999));
+        }
+    }
+
+    @Test
+    public void importsPlainCsvAndFindsEveryTower() throws IOException {
+        assertImportAndLookup(false);
+    }
+
+    @Test
+    public void importsGzipCsv() throws IOException {
+        assertImportAndLookup(true);
+    }
+
+    @Test
+    public void looksUpObservedCell() throws IOException {
+        File index = new File(folder.getRoot(), "towers.idx");
+        new ReferenceTowerImporter(folder.newFolder(), 64).importCsv(writeCsv(false), index);
+
+        try (ReferenceTowerIndex towers = ReferenceTowerIndex.open(index)) {
+            CellData cellData = new CellData();
+            cellData.technology = "WCDMA";
+            cellData.mcc = "404";
+            cellData.mnc = "42";
+            cellData.lac = "1002";
+            cellData.cellId = "25601539";
+            assertNotNull(towers.lookup(cellData));
+
+            cellData.cellId = String.valueOf(Integer.MAX_VALUE);
+            assertNull(towers.lookup(cellData));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        File bogus = folder.newFile("bogus.idx");
+        try (OutputStream out = new FileOutputStream(bogus)) {
+            out.write(new byte[64]);
+        }
+        ReferenceTowerIndex.open(bogus).close();
+    }
+}
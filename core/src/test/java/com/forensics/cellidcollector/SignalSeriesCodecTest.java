@@ -0,0 +1,107 @@
+package com.forensics.cellidcollector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SignalSeriesCodecTest {
+    private static final long START = 1700000000000L;
+
+    @Test
+    public void regularSteadySeriesRoundTripsInTwoBitsPerSample() {
+        SignalSeriesCodec.Encoder encoder = new SignalSeriesCodec.Encoder();
+        long[] timestamps = new long[720];
+        int[] values = new int[720];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = START + i * 5000L;
+            values[i] = -95;
+            encoder.append(timestamps[i], values[i]);
+        }
+        assertRoundTrip(encoder, timestamps, values);
+        // 96-bit header plus 2 bits for each following sample, apart from the first delta
+        assertTrue(encoder.getSizeInBytes() < 200);
+    }
+
+    @Test
+    public void jitteredSeriesRoundTripsAcrossEveryBucket() {
+        Random random = new Random(42);
+        long[] timestamps = new long[2000];
+        int[] values = new int[2000];
+        long timestamp = START;
+        for (int i = 0; i < timestamps.length; i++) {
+            // Mostly small jitter, with occasional gaps reaching the wider delta-of-delta buckets
+            int kind = random.nextInt(10);
+            long step = kind < 6 ? 5000 + random.nextInt(60) - 30
+                : kind < 8 ? 5000 + random.nextInt(4000) - 2000
+                : kind < 9 ? random.nextInt(60000)
+                : random.nextInt(1 << 30);
+            timestamp += step;
+            timestamps[i] = timestamp;
+            values[i] = random.nextInt(5) == 0 ? -44 - random.nextInt(100) : -90 + random.nextInt(3);
+        }
+
+        SignalSeriesCodec.Encoder encoder = new SignalSeriesCodec.Encoder();
+        for (int i = 0; i < timestamps.length; i++) {
+            assertTrue(encoder.canAppend(timestamps[i]));
+            encoder.append(timestamps[i], values[i]);
+        }
+        assertRoundTrip(encoder, timestamps, values);
+    }
+
+    @Test
+    public void extremeValuesAndOutOfOrderTimestampsRoundTrip() {
+        long[] timestamps = {START, START - 1000, START + 1, START + 1, START + 86400000L};
+        int[] values = {Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1, -140};
+
+        SignalSeriesCodec.Encoder encoder = new SignalSeriesCodec.Encoder();
+        for (int i = 0; i < timestamps.length; i++) {
+            encoder.append(timestamps[i], values[i]);
+        }
+        assertRoundTrip(encoder, timestamps, values);
+        assertEquals(START - 1000, encoder.getMinTimestamp());
+        assertEquals(START + 86400000L, encoder.getMaxTimestamp());
+    }
+
+    @Test
+    public void gapBeyondWidestBucketCannotBeAppended() {
+        SignalSeriesCodec.Encoder encoder = new SignalSeriesCodec.Encoder();
+        encoder.append(START, -80);
+        encoder.append(START + 1000, -80);
+        assertFalse(encoder.canAppend(START + 1000 + (1L << 40)));
+    }
+
+    @Test
+    public void withoutDropsOnlyTheGivenRange() {
+        SignalSeriesCodec.Encoder encoder = new SignalSeriesCodec.Encoder();
+        for (int i = 0; i < 10; i++) {
+            encoder.append(START + i * 1000L, -100 + i);
+        }
+        SignalSeriesBlock block = SignalSeriesBlock.seal("LTE:1:1:7", "LTE", "1", "1", encoder);
+
+        SignalSeriesBlock remaining = block.without(START + 3000, START + 5999);
+        SignalSeries series = remaining.decode();
+        assertEquals(7, series.size());
+        assertEquals(START + 2000, series.getTimestamp(2));
+        assertEquals(START + 6000, series.getTimestamp(3));
+        assertEquals(-94, series.getValue(3));
+        assertEquals(START, remaining.startTimestamp);
+        assertEquals(START + 9000, remaining.endTimestamp);
+
+        assertNull(block.without(START, START + 9000));
+    }
+
+    private static void assertRoundTrip(SignalSeriesCodec.Encoder encoder, long[] timestamps, int[] values) {
+        assertEquals(timestamps.length, encoder.getCount());
+        SignalSeries series = SignalSeriesCodec.decode(encoder.toByteArray(), encoder.getCount());
+        assertEquals(timestamps.length, series.size());
+        for (int i = 0; i < timestamps.length; i++) {
+            assertEquals("timestamp " + i, timestamps[i], series.getTimestamp(i));
+            assertEquals("value " + i, values[i], series.getValue(i));
+        }
+    }
+}
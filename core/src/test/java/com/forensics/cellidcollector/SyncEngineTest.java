@@ -0,0 +1,240 @@
+package com.forensics.cellidcollector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+// Runs the engine against a local collection endpoint that deduplicates by idempotency key
+public class SyncEngineTest {
+    private HttpServer server;
+    private SyncClient client;
+    private final Map<String, Integer> accepted = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger conflicts = new AtomicInteger();
+    // Statuses returned before the server starts accepting again
+    private final List<Integer> injected = new ArrayList<>();
+
+    private final MemoryStore store = new MemoryStore();
+    private final MemoryCheckpoint checkpoint = new MemoryCheckpoint();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/sync", this::handle);
+        server.start();
+        client = new SyncClient("http://127.0.0.1:" + server.getAddress().getPort() + "/sync", "device-1");
+
+        for (int i = 1; i <= 23; i++) {
+            CellData cellData = new CellData();
+            cellData.id = i;
+            cellData.timestamp = 1_700_000_000_000L + i * 5000L;
+            cellData.technology = "LTE";
+            cellData.cellId = String.valueOf(1000 + i % 4);
+            cellData.mcc = "404";
+            cellData.mnc = "45";
+            cellData.signalStrength = -80 - i;
+            store.rows.add(cellData);
+        }
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String key = exchange.getRequestHeaders().getFirst(SyncClient.HEADER_IDEMPOTENCY_KEY);
+        int lines = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(exchange.getRequestBody()), StandardCharsets.UTF_8))) {
+            while (in.readLine() != null) {
+                lines++;
+            }
+        }
+
+        int status;
+        synchronized (injected) {
+            status = injected.isEmpty() ? 0 : injected.remove(0);
+        }
+        if (status == 0) {
+            if (accepted.putIfAbsent(key, lines) != null) {
+                conflicts.incrementAndGet();
+                status = 409;
+            } else {
+                status = 200;
+            }
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private SyncEngine engine() {
+        return new SyncEngine(store, client, checkpoint, null).setBatchSize(5).setInitialBackoffMs(1);
+    }
+
+    private int acceptedRows() {
+        int rows = 0;
+        for (int lines : accepted.values()) {
+            rows += lines;
+        }
+        return rows;
+    }
+
+    @Test
+    public void retriesThroughUnavailableServerAndShipsEveryRowOnce() throws Exception {
+        injected.add(503);
+        injected.add(503);
+        injected.add(503);
+
+        SyncEngine.Result result = engine().run();
+
+        assertNull(result.failure);
+        assertTrue(result.caughtUp);
+        assertEquals(5, result.chunks);
+        assertEquals(23, result.observations);
+        assertEquals(23, result.highWaterMark);
+        assertEquals(23, checkpoint.mark);
+        assertEquals(8, requests.get());
+        assertEquals(5, accepted.size());
+        assertEquals(23, acceptedRows());
+    }
+
+    @Test
+    public void lostCheckpointResendsSameChunksAndServerDeduplicates() throws Exception {
+        engine().run();
+        checkpoint.mark = 0;
+
+        SyncEngine.Result result = engine().run();
+
+        assertNull(result.failure);
+        assertTrue(result.caughtUp);
+        assertEquals(23, checkpoint.mark);
+        assertEquals(5, conflicts.get());
+        assertEquals(5, accepted.size());
+        assertEquals(23, acceptedRows());
+    }
+
+    @Test
+    public void nonRetryableStatusStopsWithoutAdvancing() throws Exception {
+        engine().setMaxChunks(2).run();
+        injected.add(400);
+
+        SyncEngine.Result result = engine().run();
+
+        assertEquals("HTTP 400", result.failure);
+        assertFalse(result.caughtUp);
+        assertEquals(10, result.highWaterMark);
+        assertEquals(10, checkpoint.mark);
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void exhaustedRetriesReportLastFailure() throws Exception {
+        for (int i = 0; i < 8; i++) {
+            injected.add(503);
+        }
+
+        SyncEngine.Result result = engine().run();
+
+        assertEquals("HTTP 503", result.failure);
+        assertEquals(0, checkpoint.mark);
+        assertEquals(8, requests.get());
+    }
+
+    @Test
+    public void storeFailureIsReportedInsteadOfCaughtUp() throws Exception {
+        store.failing = true;
+
+        SyncEngine.Result result = engine().run();
+
+        assertNotNull(result.failure);
+        assertFalse(result.caughtUp);
+        assertEquals(0, requests.get());
+    }
+
+    private static class MemoryCheckpoint implements SyncEngine.Checkpoint {
+        long mark;
+
+        @Override
+        public long load() {
+            return mark;
+        }
+
+        @Override
+        public void save(long highWaterMark) {
+            mark = highWaterMark;
+        }
+    }
+
+    private static class MemoryStore implements CellDataStore {
+        final List<CellData> rows = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        public void scanObservationsAfterId(long afterId, int limit, CellDataVisitor visitor) {
+            if (failing) {
+                throw new IllegalStateException("Store unavailable");
+            }
+            int visited = 0;
+            for (CellData cellData : rows) {
+                if (cellData.id > afterId && visited++ < limit && !visitor.visit(cellData)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public int getTotalCellCount() {
+            return rows.size();
+        }
+
+        @Override
+        public long getFirstTimestamp() {
+            return rows.isEmpty() ? -1 : rows.get(0).timestamp;
+        }
+
+        @Override
+        public long getLastTimestamp() {
+            return rows.isEmpty() ? -1 : rows.get(rows.size() - 1).timestamp;
+        }
+
+        @Override
+        public void scanObservations(long fromTimestamp, long toTimestamp, boolean registeredOnly,
+                                     CellDataVisitor visitor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void scanObservationColumns(long fromTimestamp, long toTimestamp, ObservationColumns page,
+                                           ObservationColumns.Visitor visitor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
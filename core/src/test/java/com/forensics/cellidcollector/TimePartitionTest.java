@@ -0,0 +1,70 @@
+package com.forensics.cellidcollector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TimePartitionTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Test
+    public void emptyRangeHasNoPartitions() {
+        assertTrue(TimePartition.split(10, 9, HOUR, 4).isEmpty());
+    }
+
+    @Test
+    public void partitionsCoverRangeContiguouslyAndInclusively() {
+        long from = 5 * HOUR + 1234;
+        long to = 29 * HOUR + 777;
+        List<TimePartition> partitions = TimePartition.split(from, to, HOUR, 6);
+
+        assertEquals(from, partitions.get(0).fromTimestamp);
+        assertEquals(to, partitions.get(partitions.size() - 1).toTimestamp);
+        for (int i = 1; i < partitions.size(); i++) {
+            assertEquals(partitions.get(i - 1).toTimestamp + 1, partitions.get(i).fromTimestamp);
+        }
+        for (TimePartition partition : partitions) {
+            assertTrue(partition.fromTimestamp <= partition.toTimestamp);
+        }
+    }
+
+    @Test
+    public void innerBoundariesAreAligned() {
+        List<TimePartition> partitions = TimePartition.split(3 * HOUR + 17, 50 * HOUR, HOUR, 7);
+        for (int i = 1; i < partitions.size(); i++) {
+            assertEquals(0, partitions.get(i).fromTimestamp % HOUR);
+        }
+    }
+
+    @Test
+    public void neverExceedsMaxPartitions() {
+        for (int maxPartitions = 1; maxPartitions <= 16; maxPartitions++) {
+            for (long offset = 0; offset < 4 * HOUR; offset += HOUR / 3) {
+                long from = 1_700_000_000_000L + offset;
+                List<TimePartition> partitions = TimePartition.split(from, from + 37 * HOUR, HOUR, maxPartitions);
+                assertTrue(partitions + " for max " + maxPartitions, partitions.size() <= maxPartitions);
+            }
+        }
+    }
+
+    @Test
+    public void unalignedStartDoesNotAddPartition() {
+        // Ten hours starting mid-hour span eleven aligned hours; the slices must still number ten
+        long from = HOUR / 2;
+        List<TimePartition> partitions = TimePartition.split(from, from + 10 * HOUR - 1, HOUR, 10);
+        assertTrue(partitions.toString(), partitions.size() <= 10);
+        assertEquals(from, partitions.get(0).fromTimestamp);
+        assertEquals(from + 10 * HOUR - 1, partitions.get(partitions.size() - 1).toTimestamp);
+    }
+
+    @Test
+    public void rangeShorterThanAlignmentIsOnePartition() {
+        List<TimePartition> partitions = TimePartition.split(HOUR + 10, HOUR + 20, HOUR, 8);
+        assertEquals(1, partitions.size());
+        assertEquals(HOUR + 10, partitions.get(0).fromTimestamp);
+        assertEquals(HOUR + 20, partitions.get(0).toTimestamp);
+    }
+}
@@ -0,0 +1,69 @@
+package com.forensics.cellidcollector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TrackSimplifierTest {
+    private final List<Long> emitted = new ArrayList<>();
+
+    private TrackSimplifier simplifier(double toleranceMeters, int windowSize) {
+        return new TrackSimplifier(toleranceMeters, windowSize,
+            (latitude, longitude, timestamp) -> emitted.add(timestamp));
+    }
+
+    @Test
+    public void zigZagAcrossWindowsKeepsEveryPoint() {
+        TrackSimplifier simplifier = simplifier(1, 4);
+        for (int i = 0; i < 10; i++) {
+            // About 110 m off the line on every other fix
+            simplifier.add(i % 2 == 0 ? 0 : 0.001, i * 0.001, i);
+        }
+        simplifier.finish();
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), emitted);
+        assertEquals(10, simplifier.getOutputCount());
+    }
+
+    @Test
+    public void straightLineKeepsWindowBoundariesAndLastPoint() {
+        TrackSimplifier simplifier = simplifier(1, 4);
+        for (int i = 0; i < 11; i++) {
+            simplifier.add(0, i * 0.001, i);
+        }
+        simplifier.finish();
+
+        // Windows are [0..3], [3..6], [6..9] and the remainder [9..10]
+        assertEquals(Arrays.asList(0L, 3L, 6L, 9L, 10L), emitted);
+    }
+
+    @Test
+    public void routeEndingOnWindowBoundaryEmitsLastPointOnce() {
+        TrackSimplifier simplifier = simplifier(1, 4);
+        for (int i = 0; i < 7; i++) {
+            simplifier.add(0, i * 0.001, i);
+        }
+        simplifier.finish();
+
+        assertEquals(Arrays.asList(0L, 3L, 6L), emitted);
+        assertEquals(7, simplifier.getInputCount());
+    }
+
+    @Test
+    public void shortAndStationaryRoutes() {
+        TrackSimplifier simplifier = simplifier(1, 4);
+        simplifier.add(1, 1, 0);
+        simplifier.add(1, 1, 1);
+        simplifier.finish();
+        assertEquals(Arrays.asList(0L), emitted);
+
+        emitted.clear();
+        simplifier = simplifier(1, 4);
+        simplifier.finish();
+        assertEquals(0, emitted.size());
+    }
+}